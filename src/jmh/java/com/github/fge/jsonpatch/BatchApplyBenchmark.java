@@ -0,0 +1,89 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Applying one patch to a collection of documents in a loop, against
+ * applying it with JsonPatch.applyAll() and a pool of platform threads
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class BatchApplyBenchmark
+{
+    @Param({ "64", "1024" })
+    public int documents;
+
+    private JsonPatch patch;
+    private List<JsonNode> nodes;
+    private ExecutorService executor;
+
+    @Setup
+    public void setup(final EntitlementDocuments source)
+        throws IOException
+    {
+        patch = JsonPatch.fromJson(source.getPatch());
+        nodes = new ArrayList<JsonNode>(documents);
+        for (int index = 0; index < documents; index++)
+            nodes.add(source.getSource().deepCopy());
+        executor = PatchExecutors.platformThreads();
+    }
+
+    @TearDown
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public List<JsonNode> applyInLoop()
+        throws JsonPatchException
+    {
+        final List<JsonNode> ret = new ArrayList<JsonNode>(nodes.size());
+
+        for (final JsonNode node: nodes)
+            ret.add(patch.apply(node));
+        return ret;
+    }
+
+    @Benchmark
+    public BatchResult applyAll()
+        throws InterruptedException
+    {
+        return patch.applyAll(nodes, executor);
+    }
+}
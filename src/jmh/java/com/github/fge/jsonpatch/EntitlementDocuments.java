@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+/*
+ * Generated role documents, shaped like the one in
+ * src/test/resources/jsonpatch/diff/confluxsys.json, and a modified copy of
+ * them.
+ *
+ * Along with the two documents, the changes are also available as a JSON
+ * Patch (which only uses standard paths, so that it can be applied) and as a
+ * JSON Merge Patch.
+ *
+ * Documents only depend on the parameters, so that results of different runs
+ * can be compared.
+ */
+@State(Scope.Benchmark)
+public class EntitlementDocuments
+{
+    public static final Map<JsonPointer, Set<String>> IDENTITIES
+        = Collections.<JsonPointer, Set<String>>singletonMap(
+            JsonPointer.of("Entitlements"), Collections.unmodifiableSet(
+                new HashSet<String>(Arrays.asList("Application Key",
+                    "Entitlement Type", "Entitlement Name"))));
+
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+    private static final long SEED = 0x6a736f6eL;
+
+    /*
+     * Length of the entitlement array
+     */
+    @Param({ "100", "1000", "10000" })
+    public int entitlements;
+
+    /*
+     * Number of attributes of an entitlement, besides its identity attributes
+     * and its key
+     */
+    @Param({ "2", "16" })
+    public int attributes;
+
+    /*
+     * Depth of the "Additional Info" object of each entitlement
+     */
+    @Param({ "1", "4" })
+    public int depth;
+
+    /*
+     * Ratio of entitlements which are modified, removed or added
+     */
+    @Param({ "0.01", "0.1" })
+    public double changeRatio;
+
+    private ObjectNode source;
+    private ObjectNode target;
+    private ArrayNode patch;
+    private JsonNode mergePatch;
+
+    @Setup
+    public void generate()
+    {
+        final Random random = new Random(SEED);
+        final ArrayNode elements = FACTORY.arrayNode();
+
+        source = role(elements);
+        for (int index = 0; index < entitlements; index++)
+            elements.add(entitlement(Integer.toString(index)));
+
+        target = source.deepCopy();
+        patch = FACTORY.arrayNode();
+
+        final ArrayNode changed = (ArrayNode) target.get("Entitlements");
+
+        /*
+         * Change one entitlement every "step" entitlements
+         */
+        final int step = Math.max(1, (int) Math.round(1 / changeRatio));
+
+        int removed = 0;
+        int added = 0;
+        int index;
+        ObjectNode element;
+
+        for (int i = step / 2; i < entitlements; i += step) {
+            index = i - removed;
+            element = (ObjectNode) changed.get(index);
+            switch (random.nextInt(3)) {
+                case 0:
+                    modifyAttribute(element, index, random);
+                    break;
+                case 1:
+                    modifyAdditionalInfo(element, index);
+                    break;
+                default:
+                    changed.remove(index);
+                    patch.addObject().put("op", "remove")
+                        .put("path", "/Entitlements/" + index);
+                    removed++;
+                    added++;
+            }
+        }
+
+        for (int i = 0; i < added; i++) {
+            element = entitlement("new-" + i);
+            changed.add(element);
+            patch.addObject().put("op", "add").put("path", "/Entitlements/-")
+                .set("value", element.deepCopy());
+        }
+
+        mergePatch = mergePatch(source, target);
+    }
+
+    public ObjectNode getSource()
+    {
+        return source;
+    }
+
+    public ObjectNode getTarget()
+    {
+        return target;
+    }
+
+    public ArrayNode getPatch()
+    {
+        return patch;
+    }
+
+    public JsonNode getMergePatch()
+    {
+        return mergePatch;
+    }
+
+    private static ObjectNode role(final ArrayNode elements)
+    {
+        final ObjectNode ret = FACTORY.objectNode();
+
+        ret.put("Role Display Name", "Generated Role");
+        ret.put("Role Category", "Default");
+        ret.put("Role Name", "Generated Role");
+        ret.put("Role Description", "Generated Role");
+        ret.put("Organization", "Confluxsys");
+        ret.put("Role Owner Login", "PBULE");
+        ret.put("Role ID", "14350");
+        ret.put("$identifier", "14350");
+        ret.set("Entitlements", elements);
+        return ret;
+    }
+
+    private ObjectNode entitlement(final String key)
+    {
+        final ObjectNode ret = FACTORY.objectNode();
+
+        ret.put("Application Key", key);
+        ret.put("Entitlement Type", "UD_GROUPS_GROUPS");
+        ret.put("Entitlement Name", key + "~Deployment Owners");
+        ret.put("Entitlement Key", key);
+        for (int i = 0; i < attributes; i++)
+            ret.put("Attribute " + i, key + '-' + i);
+
+        ObjectNode info = ret.putObject("Additional Info");
+
+        for (int level = 1; level < depth; level++)
+            info = info.put("Level", level).putObject("Details");
+        info.put("Comment", "test");
+        return ret;
+    }
+
+    private void modifyAttribute(final ObjectNode element, final int index,
+        final Random random)
+    {
+        final int attribute = random.nextInt(attributes + 1);
+        final String name = attribute == attributes ? "Entitlement Key"
+            : "Attribute " + attribute;
+
+        element.put(name, "updated");
+        patch.addObject().put("op", "replace")
+            .put("path", "/Entitlements/" + index + '/' + name)
+            .put("value", "updated");
+    }
+
+    private void modifyAdditionalInfo(final ObjectNode element, final int index)
+    {
+        final StringBuilder path = new StringBuilder("/Entitlements/")
+            .append(index).append("/Additional Info");
+
+        ObjectNode info = (ObjectNode) element.get("Additional Info");
+
+        for (int level = 1; level < depth; level++) {
+            info = (ObjectNode) info.get("Details");
+            path.append("/Details");
+        }
+        info.put("Comment", "updated");
+        patch.addObject().put("op", "replace")
+            .put("path", path.append("/Comment").toString())
+            .put("value", "updated");
+    }
+
+    private static JsonNode mergePatch(final JsonNode source,
+        final JsonNode target)
+    {
+        if (!source.isObject() || !target.isObject())
+            return target;
+
+        final ObjectNode ret = FACTORY.objectNode();
+        final Iterator<String> names = source.fieldNames();
+
+        String name;
+
+        while (names.hasNext()) {
+            name = names.next();
+            if (!target.has(name))
+                ret.putNull(name);
+        }
+
+        final Iterator<Map.Entry<String, JsonNode>> members = target.fields();
+
+        Map.Entry<String, JsonNode> member;
+        JsonNode value;
+
+        while (members.hasNext()) {
+            member = members.next();
+            name = member.getKey();
+            value = source.get(name);
+            if (value == null)
+                ret.set(name, member.getValue());
+            else if (!value.equals(member.getValue()))
+                ret.set(name, mergePatch(value, member.getValue()));
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jackson.JacksonUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class JsonPatchBenchmark
+{
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private JsonPatch patch;
+    private JsonPatchPlan plan;
+    private byte[] encoded;
+    private JsonPatch[] history;
+
+    @Setup
+    public void setup(final EntitlementDocuments documents)
+        throws IOException
+    {
+        patch = JsonPatch.fromJson(documents.getPatch());
+        plan = JsonPatch.fromJson(documents.getPatch()).compile();
+        encoded = MAPPER.writeValueAsBytes(documents.getPatch());
+
+        final List<JsonPatchOperation> operations = patch.getOperations();
+
+        history = new JsonPatch[operations.size()];
+        for (int index = 0; index < history.length; index++)
+            history[index] = new JsonPatch(
+                Collections.singletonList(operations.get(index)));
+    }
+
+    @Benchmark
+    public JsonNode apply(final EntitlementDocuments documents)
+        throws JsonPatchException
+    {
+        return patch.apply(documents.getSource());
+    }
+
+    @Benchmark
+    public JsonNode applyCompiled(final EntitlementDocuments documents)
+        throws JsonPatchException
+    {
+        return plan.apply(documents.getSource());
+    }
+
+    @Benchmark
+    public JsonNode applySharing(final EntitlementDocuments documents)
+        throws JsonPatchException
+    {
+        return patch.apply(documents.getSource(), ApplyMode.SHARE);
+    }
+
+    /*
+     * Reading the patch and applying it, against doing both at once
+     */
+    @Benchmark
+    public JsonNode readThenApply(final EntitlementDocuments documents)
+        throws IOException, JsonPatchException
+    {
+        final JsonParser parser = FACTORY.createParser(encoded);
+
+        try {
+            return JsonPatch.fromParser(parser).apply(documents.getSource());
+        } finally {
+            parser.close();
+        }
+    }
+
+    @Benchmark
+    public JsonNode applyStreaming(final EntitlementDocuments documents)
+        throws IOException, JsonPatchException
+    {
+        final JsonParser parser = FACTORY.createParser(encoded);
+
+        try {
+            return JsonPatch.applyStreaming(parser, documents.getSource());
+        } finally {
+            parser.close();
+        }
+    }
+
+    /*
+     * Replaying a history of single operation patches one by one, against
+     * composing them into one patch first
+     */
+    @Benchmark
+    public JsonNode replayHistory(final EntitlementDocuments documents)
+        throws JsonPatchException
+    {
+        JsonNode node = documents.getSource();
+
+        for (final JsonPatch version: history)
+            node = version.apply(node);
+        return node;
+    }
+
+    @Benchmark
+    public JsonNode composeHistory(final EntitlementDocuments documents)
+        throws JsonPatchException
+    {
+        return JsonPatch.compose(history).apply(documents.getSource());
+    }
+
+    /*
+     * The input is copied before each invocation, outside of the measurement
+     */
+    @Benchmark
+    public JsonNode applyInPlace(final Input input)
+        throws JsonPatchException
+    {
+        return patch.apply(input.node, ApplyMode.MUTATE);
+    }
+
+    @State(Scope.Thread)
+    public static class Input
+    {
+        private JsonNode node;
+
+        @Setup(Level.Invocation)
+        public void copy(final EntitlementDocuments documents)
+        {
+            node = documents.getSource().deepCopy();
+        }
+    }
+}
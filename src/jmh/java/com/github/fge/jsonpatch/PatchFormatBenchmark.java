@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Writing and reading a standard JSON Patch in each format; the size of the
+ * encoded patch is reported as the "bytes" secondary result.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PatchFormatBenchmark
+{
+    @Param({ "JSON", "SMILE", "CBOR" })
+    public PatchFormat format;
+
+    private JsonPatch patch;
+    private byte[] encoded;
+
+    @Setup
+    public void setup(final EntitlementDocuments documents)
+        throws IOException
+    {
+        patch = JsonPatch.fromJson(documents.getPatch());
+        encoded = write();
+    }
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Size
+    {
+        public long bytes;
+    }
+
+    @Benchmark
+    public byte[] writePatch(final Size size)
+        throws IOException
+    {
+        final byte[] ret = write();
+        size.bytes = ret.length;
+        return ret;
+    }
+
+    @Benchmark
+    public JsonPatch readPatch()
+        throws IOException
+    {
+        return JsonPatch.readFrom(new ByteArrayInputStream(encoded), format);
+    }
+
+    private byte[] write()
+        throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        patch.writeTo(out, format);
+        return out.toByteArray();
+    }
+}
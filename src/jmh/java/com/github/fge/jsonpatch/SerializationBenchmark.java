@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonpatch.diff.JsonDiff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Writing a generated patch (in the format produced by JsonDiff, and with each
+ * output profile), and reading a standard JSON Patch, with Jackson and with
+ * JsonPatchReader.
+ *
+ * Run with the gc profiler ("-prof gc"), gc.alloc.rate.norm gives the memory
+ * allocated for each patch read, which includes the values of operations.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class SerializationBenchmark
+{
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+
+    @Param({ "STRICT", "AUDIT", "COMPACT" })
+    public PatchOutputProfile profile;
+
+    private JsonPatch diff;
+    private String patch;
+
+    @Setup
+    public void setup(final EntitlementDocuments documents)
+        throws IOException
+    {
+        diff = JsonDiff.asJsonPatch(documents.getSource(),
+            documents.getTarget(), EntitlementDocuments.IDENTITIES);
+        patch = MAPPER.writeValueAsString(documents.getPatch());
+    }
+
+    @Benchmark
+    public String writeDiff()
+        throws IOException
+    {
+        return MAPPER.writeValueAsString(diff);
+    }
+
+    @Benchmark
+    public String writeDiffWithProfile()
+        throws IOException
+    {
+        final StringWriter writer = new StringWriter();
+        final JsonGenerator jgen = MAPPER.getFactory().createGenerator(writer);
+
+        diff.writeTo(jgen, profile);
+        jgen.close();
+        return writer.toString();
+    }
+
+    @Benchmark
+    public JsonPatch readPatch()
+        throws IOException
+    {
+        return MAPPER.readValue(patch, JsonPatch.class);
+    }
+
+    @Benchmark
+    public JsonPatch readPatchStreaming()
+        throws IOException
+    {
+        final JsonParser parser = MAPPER.getFactory().createParser(patch);
+
+        try {
+            return JsonPatch.fromParser(parser);
+        } finally {
+            parser.close();
+        }
+    }
+}
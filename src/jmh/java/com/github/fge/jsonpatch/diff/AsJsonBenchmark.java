@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jsonpatch.EntitlementDocuments;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Turning a patch into a JSON value as JsonDiff.asJson() does, against what it
+ * used to do, that is, serialize the patch to a string and parse it back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AsJsonBenchmark
+{
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+
+    private JsonPatch patch;
+
+    @Setup
+    public void setup(final EntitlementDocuments documents)
+        throws JsonProcessingException
+    {
+        patch = JsonDiff.asJsonPatch(documents.getSource(),
+            documents.getTarget(), EntitlementDocuments.IDENTITIES);
+    }
+
+    @Benchmark
+    public JsonNode treeFromTokenBuffer()
+    {
+        return MAPPER.valueToTree(patch);
+    }
+
+    @Benchmark
+    public JsonNode treeFromString()
+        throws IOException
+    {
+        return MAPPER.readTree(MAPPER.writeValueAsString(patch));
+    }
+}
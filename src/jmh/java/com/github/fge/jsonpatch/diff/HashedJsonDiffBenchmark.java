@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.fge.jsonpatch.EntitlementDocuments;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Diff of hashed trees, to be compared with JsonDiffBenchmark.asJsonPatch().
+ *
+ * When diffing successive snapshots, the tree of the source has already been
+ * hashed as the target of the previous diff: hashAndDiff() only hashes the
+ * target, and asJsonPatch() measures the diff alone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class HashedJsonDiffBenchmark
+{
+    private HashedJsonTree source;
+    private HashedJsonTree target;
+
+    @Setup
+    public void setup(final EntitlementDocuments documents)
+    {
+        source = HashedJsonTree.of(documents.getSource());
+        target = HashedJsonTree.of(documents.getTarget());
+    }
+
+    @Benchmark
+    public JsonPatch asJsonPatch()
+        throws JsonProcessingException
+    {
+        return JsonDiff.asJsonPatch(source, target,
+            EntitlementDocuments.IDENTITIES);
+    }
+
+    @Benchmark
+    public JsonPatch hashAndDiff(final EntitlementDocuments documents)
+        throws JsonProcessingException
+    {
+        return JsonDiff.asJsonPatch(source,
+            HashedJsonTree.of(documents.getTarget()),
+            EntitlementDocuments.IDENTITIES);
+    }
+}
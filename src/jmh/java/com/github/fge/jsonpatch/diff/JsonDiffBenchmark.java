@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jsonpatch.EntitlementDocuments;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonDiffBenchmark
+{
+    @Benchmark
+    public JsonPatch asJsonPatch(final EntitlementDocuments documents)
+        throws JsonProcessingException
+    {
+        return JsonDiff.asJsonPatch(documents.getSource(),
+            documents.getTarget(), EntitlementDocuments.IDENTITIES);
+    }
+
+    @Benchmark
+    public JsonNode asJson(final EntitlementDocuments documents)
+    {
+        return JsonDiff.asJson(documents.getSource(), documents.getTarget(),
+            EntitlementDocuments.IDENTITIES);
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.fge.jsonpatch.EntitlementDocuments;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+ * Diff of a batch of pairs, one JsonDiff.asJsonPatch() call at a time against
+ * a JsonDiffEngine
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class JsonDiffEngineBenchmark
+{
+    private static final int BATCH_SIZE = 64;
+
+    @Param({ "1", "4" })
+    public int threads;
+
+    private final List<JsonDiffEngine.Pair<Integer>> pairs
+        = new ArrayList<JsonDiffEngine.Pair<Integer>>(BATCH_SIZE);
+
+    private ExecutorService executor;
+    private JsonDiffEngine engine;
+
+    @Setup
+    public void setup(final EntitlementDocuments documents)
+    {
+        for (int index = 0; index < BATCH_SIZE; index++)
+            pairs.add(new JsonDiffEngine.Pair<Integer>(index,
+                documents.getSource(), documents.getTarget()));
+        executor = Executors.newFixedThreadPool(threads);
+        engine = new JsonDiffEngine(EntitlementDocuments.IDENTITIES, executor,
+            2 * threads);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        executor.shutdown();
+    }
+
+    @Benchmark
+    public void singleDiffs(final Blackhole blackhole)
+        throws JsonProcessingException
+    {
+        for (final JsonDiffEngine.Pair<Integer> pair: pairs)
+            blackhole.consume(JsonDiff.asJsonPatch(pair.getSource(),
+                pair.getTarget(), EntitlementDocuments.IDENTITIES));
+    }
+
+    /*
+     * Blackholes must not be used by several threads, so patches are stored
+     * instead
+     */
+    @Benchmark
+    public AtomicReferenceArray<JsonPatch> engine()
+        throws InterruptedException
+    {
+        final AtomicReferenceArray<JsonPatch> ret
+            = new AtomicReferenceArray<JsonPatch>(BATCH_SIZE);
+
+        engine.diff(pairs.iterator(), new JsonDiffEngine.Callback<Integer>()
+        {
+            @Override
+            public void onPatch(final Integer key, final JsonPatch patch)
+            {
+                ret.set(key, patch);
+            }
+
+            @Override
+            public void onFailure(final Integer key, final Exception e)
+            {
+                throw new IllegalStateException(e);
+            }
+        });
+        return ret;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.github.fge.jsonpatch.EntitlementDocuments;
+import com.github.fge.jsonpatch.JsonPatch;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Parallel diff, to be compared with JsonDiffBenchmark.asJsonPatch()
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class ParallelJsonDiffBenchmark
+{
+    @Param({ "64", "512" })
+    public int threshold;
+
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup()
+    {
+        pool = new ForkJoinPool();
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public JsonPatch asJsonPatch(final EntitlementDocuments documents)
+        throws JsonProcessingException
+    {
+        return JsonDiff.asJsonPatch(documents.getSource(),
+            documents.getTarget(), EntitlementDocuments.IDENTITIES, pool,
+            threshold);
+    }
+}
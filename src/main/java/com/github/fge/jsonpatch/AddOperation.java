@@ -21,13 +21,13 @@ package com.github.fge.jsonpatch;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
-import com.github.fge.jackson.jsonpointer.ReferenceToken;
-import com.github.fge.jackson.jsonpointer.TokenResolver;
 
+import java.io.IOException;
 import java.util.NoSuchElementException;
 
 
@@ -67,10 +67,8 @@ import java.util.NoSuchElementException;
  */
 public final class AddOperation
     extends PathValueOperation
+    implements InPlaceOperation
 {
-    private static final ReferenceToken LAST_ARRAY_ELEMENT
-        = ReferenceToken.fromRaw("-");
-
     @JsonCreator
     public AddOperation(@JsonProperty("path") final JsonPointer path,
         @JsonProperty("value") final JsonNode value )
@@ -78,67 +76,105 @@ public final class AddOperation
         super("add", path, value);
     }
 
+    @Override
+    void writeTo(final JsonGenerator jgen, final PatchOutputProfile profile)
+        throws IOException
+    {
+        profile.writeAdd(jgen, this);
+    }
+
     @Override
     public JsonNode apply(final JsonNode node)
         throws JsonPatchException
+    {
+        if (path.isEmpty())
+            return value.deepCopy();
+        final CompiledPointer pointer = compiledPath();
+        checkParent(pointer, node);
+        final JsonNode ret = node.deepCopy();
+        add(pointer, value.deepCopy(), pointer.getParent(ret),
+            UndoLog.discarding());
+        return ret;
+    }
+
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    @Override
+    public JsonNode applyInPlace(final JsonNode node, final UndoLog log)
+        throws JsonPatchException
+    {
+        if (path.isEmpty())
+            return value.deepCopy();
+        final CompiledPointer pointer = compiledPath();
+        add(pointer, value.deepCopy(), checkParent(pointer, node), log);
+        return node;
+    }
+
+    @Override
+    public JsonNode applySharing(final JsonNode node)
+        throws JsonPatchException
     {
         if (path.isEmpty())
             return value;
+        final CompiledPointer pointer = compiledPath();
+        checkParent(pointer, node);
+        final JsonNode ret = PathCopy.copyParents(node, pointer);
+        add(pointer, value, pointer.getParent(ret), UndoLog.discarding());
+        return ret;
+    }
 
-        /*
-         * Check the parent node: it must exist and be a container (ie an array
-         * or an object) for the add operation to work.
-         */
-        final JsonNode parentNode = path.parent().path(node);
-        if (parentNode.isMissingNode())
+    /*
+     * Check the parent node: it must exist and be a container (ie an array or
+     * an object) for the add operation to work. The path must not be empty.
+     */
+    static JsonNode checkParent(final CompiledPointer path,
+        final JsonNode node)
+        throws JsonPatchException
+    {
+        final JsonNode parentNode = path.getParent(node);
+        if (parentNode == null || parentNode.isMissingNode())
             throw new JsonPatchException(BUNDLE.getMessage(
                 "jsonPatch.noSuchParent"));
         if (!parentNode.isContainerNode())
             throw new JsonPatchException(BUNDLE.getMessage(
                 "jsonPatch.parentNotContainer"));
-        return parentNode.isArray()
-            ? addToArray(path, node)
-            : addToObject(path, node);
+        return parentNode;
     }
 
-    private JsonNode addToArray(final JsonPointer path, final JsonNode node)
+    /*
+     * Add a value to a container, in place; the container must have been
+     * returned by checkParent(), or be a copy of it.
+     */
+    static void add(final CompiledPointer path, final JsonNode value,
+        final JsonNode parentNode, final UndoLog log)
         throws JsonPatchException
     {
-        final JsonNode ret = node.deepCopy();
-       // System.out.println(ret);
-        final ArrayNode target = (ArrayNode) path.parent().get(ret);
-      //  System.out.println(target);
-        final TokenResolver<JsonNode> token = Iterables.getLast(path);
-      //  System.out.println(token);
-
-        if (token.getToken().equals(LAST_ARRAY_ELEMENT)) {
-            target.add(value);
-            return ret;
+        if (parentNode.isObject()) {
+            log.set((ObjectNode) parentNode, path.lastToken(), value);
+            return;
         }
 
+        final ArrayNode target = (ArrayNode) parentNode;
         final int size = target.size();
-        final int index;
-        try {
-            index = Integer.parseInt(token.toString());
-        } catch (NumberFormatException ignored) {
+        final int index = path.insertIndex();
+
+        if (index == CompiledPointer.APPEND) {
+            log.insert(target, size, value);
+            return;
+        }
+
+        if (index == CompiledPointer.NOT_AN_INDEX)
             throw new JsonPatchException(BUNDLE.getMessage(
                 "jsonPatch.notAnIndex"));
-        }
 
         if (index < 0 || index > size)
             throw new JsonPatchException(BUNDLE.getMessage(
                 "jsonPatch.noSuchIndex"));
 
-        target.insert(index, value);
-        return ret;
-    }
-
-    private JsonNode addToObject(final JsonPointer path, final JsonNode node)
-    {
-        final TokenResolver<JsonNode> token = Iterables.getLast(path);
-        final JsonNode ret = node.deepCopy();
-        final ObjectNode target = (ObjectNode) path.parent().get(ret);
-        target.set(token.getToken().getRaw(), value);
-        return ret;
+        log.insert(target, index, value);
     }
 }
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.List;
+
+/**
+ * Application of operations one at a time, as described by {@link
+ * JsonPatch#apply(JsonNode, ApplyMode)}
+ *
+ * <p>If an operation fails, {@link #revert()} must be called.</p>
+ */
+final class Applier
+{
+    private final boolean share;
+    private final UndoLog log;
+
+    /*
+     * Whether "value" may be modified in place
+     */
+    private boolean owned;
+    private JsonNode value;
+
+    Applier(final JsonNode node, final ApplyMode mode)
+    {
+        share = mode == ApplyMode.SHARE;
+        owned = mode == ApplyMode.MUTATE;
+        log = owned ? UndoLog.recording() : UndoLog.discarding();
+        value = node;
+    }
+
+    /**
+     * Apply a list of operations
+     *
+     * @param operations the operations
+     * @param node the value to apply them to
+     * @param mode the application mode
+     * @return the patched value
+     * @throws JsonPatchException an operation failed to apply
+     */
+    static JsonNode applyAll(final List<JsonPatchOperation> operations,
+        final JsonNode node, final ApplyMode mode)
+        throws JsonPatchException
+    {
+        final Applier applier = new Applier(node, mode);
+        boolean done = false;
+
+        try {
+            for (final JsonPatchOperation operation: operations)
+                applier.apply(operation);
+            done = true;
+        } finally {
+            if (!done)
+                applier.revert();
+        }
+
+        return applier.value;
+    }
+
+    static JsonNode applySharing(final JsonPatchOperation operation,
+        final JsonNode node)
+        throws JsonPatchException
+    {
+        return operation instanceof InPlaceOperation
+            ? ((InPlaceOperation) operation).applySharing(node)
+            : operation.apply(node);
+    }
+
+    JsonNode getValue()
+    {
+        return value;
+    }
+
+    void apply(final JsonPatchOperation operation)
+        throws JsonPatchException
+    {
+        if (share) {
+            value = applySharing(operation, value);
+            return;
+        }
+        if (!(operation instanceof InPlaceOperation)) {
+            value = operation.apply(value);
+            owned = false;
+            return;
+        }
+
+        final InPlaceOperation inPlace = (InPlaceOperation) operation;
+
+        /*
+         * Read only operations need no copy of their own
+         */
+        if (inPlace.isReadOnly()) {
+            value = operation.apply(value);
+            return;
+        }
+        if (!owned) {
+            value = value.deepCopy();
+            owned = true;
+        }
+        value = inPlace.applyInPlace(value, log);
+    }
+
+    void revert()
+    {
+        log.revert();
+    }
+}
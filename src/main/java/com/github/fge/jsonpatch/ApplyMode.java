@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * How a {@link JsonPatch} treats the value it is applied to
+ *
+ * @see JsonPatch#apply(JsonNode, ApplyMode)
+ * @since 1.13
+ */
+public enum ApplyMode
+{
+    /**
+     * Leave the input value untouched
+     *
+     * <p>The input value is copied once, before the first operation which
+     * modifies it; all operations are then applied to this copy. If no
+     * operation modifies the value (for instance, if the patch only has
+     * {@code test} operations), the result is the input value itself.</p>
+     */
+    COPY,
+    /**
+     * Leave the input value untouched, and share unmodified values with it
+     *
+     * <p>Instead of a copy of the whole input value, operations only copy the
+     * containers leading to the value they modify; the result shares all
+     * other values with the input value. This also holds for intermediate
+     * results, which makes it possible to keep all of them (see {@link
+     * JsonPatch#applyWithHistory(JsonNode)}).</p>
+     *
+     * <p>Since values are shared, neither the input value nor the result
+     * should be modified afterwards.</p>
+     */
+    SHARE,
+    /**
+     * Modify the input value directly
+     *
+     * <p>No copy is made. If an operation fails, all changes made by the
+     * previous operations are undone before the exception is thrown, so that
+     * the input value is left as it was.</p>
+     *
+     * <p>Note that the patched value must still be taken from the return value
+     * of {@link JsonPatch#apply(JsonNode, ApplyMode)}: an operation on the
+     * root of the document replaces the value instead of modifying it.</p>
+     */
+    MUTATE
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Results of applying a patch to a collection of values
+ *
+ * <p>Results are indexed by the position of values in the collection. A
+ * value the patch failed to apply to has no result, but a failure instead;
+ * failures do not prevent the patch from being applied to other values.</p>
+ *
+ * @see JsonPatchPlan#applyAll(java.util.Collection, ApplyMode,
+ * java.util.concurrent.Executor)
+ * @since 1.13
+ */
+public final class BatchResult
+{
+    private final JsonNode[] results;
+    private final JsonPatchException[] failures;
+    private final int failureCount;
+
+    BatchResult(final JsonNode[] results, final JsonPatchException[] failures)
+    {
+        this.results = results;
+        this.failures = failures;
+
+        int count = 0;
+
+        for (final JsonPatchException failure: failures)
+            if (failure != null)
+                count++;
+        failureCount = count;
+    }
+
+    /**
+     * Get the number of values the patch was applied to
+     *
+     * @return the number of values
+     */
+    public int size()
+    {
+        return results.length;
+    }
+
+    /**
+     * Tell whether the patch applied to all values
+     *
+     * @return true if there is no failure
+     */
+    public boolean isSuccessful()
+    {
+        return failureCount == 0;
+    }
+
+    /**
+     * Get the patched value at a given position
+     *
+     * @param index the position of the value in the collection
+     * @return the patched value, or null if the patch failed to apply
+     * @throws IndexOutOfBoundsException no value at this position
+     */
+    @Nullable
+    public JsonNode getResult(final int index)
+    {
+        return results[index];
+    }
+
+    /**
+     * Get the failure for the value at a given position
+     *
+     * @param index the position of the value in the collection
+     * @return the exception thrown when applying the patch, or null if the
+     * patch applied
+     * @throws IndexOutOfBoundsException no value at this position
+     */
+    @Nullable
+    public JsonPatchException getFailure(final int index)
+    {
+        return failures[index];
+    }
+
+    /**
+     * Get all patched values, in order
+     *
+     * @return an unmodifiable list, with null elements for failed values
+     */
+    public List<JsonNode> getResults()
+    {
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    /**
+     * Get all failures
+     *
+     * @return an unmodifiable map of failures, by position of the value
+     */
+    public SortedMap<Integer, JsonPatchException> getFailures()
+    {
+        final SortedMap<Integer, JsonPatchException> ret
+            = new TreeMap<Integer, JsonPatchException>();
+
+        for (int index = 0; index < failures.length; index++)
+            if (failures[index] != null)
+                ret.put(index, failures[index]);
+        return Collections.unmodifiableSortedMap(ret);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "values: " + results.length + "; failures: " + failureCount;
+    }
+}
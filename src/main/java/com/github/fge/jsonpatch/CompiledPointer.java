@@ -0,0 +1,221 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jackson.jsonpointer.TokenResolver;
+
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A JSON Pointer with its reference tokens parsed once
+ *
+ * <p>Resolving a {@link JsonPointer} parses array indices again for each value
+ * it is resolved against, and operations also need the parent of their
+ * pointer and its last token. This class computes all of these once, so that
+ * an operation can be applied to any number of values without parsing its
+ * pointers again.</p>
+ *
+ * <p>Values are resolved in the same way as {@link JsonPointer} resolves
+ * them.</p>
+ */
+final class CompiledPointer
+{
+    /*
+     * Values of insertIndex() other than valid indices
+     */
+    static final int APPEND = -1;
+    static final int NOT_AN_INDEX = -2;
+    static final int NEGATIVE_INDEX = -3;
+
+    private final String[] tokens;
+
+    /*
+     * Array indices of the tokens, as read when resolving the pointer; -1 for
+     * tokens which cannot be array indices
+     */
+    private final int[] indices;
+
+    private final int insertIndex;
+
+    private CompiledPointer(final String[] tokens)
+    {
+        this.tokens = tokens;
+        indices = new int[tokens.length];
+        for (int index = 0; index < tokens.length; index++)
+            indices[index] = arrayIndex(tokens[index]);
+        insertIndex = tokens.length == 0 ? NOT_AN_INDEX
+            : insertIndex(tokens[tokens.length - 1]);
+    }
+
+    static CompiledPointer of(final JsonPointer pointer)
+    {
+        final List<String> list = new ArrayList<String>();
+
+        for (final TokenResolver<JsonNode> resolver: pointer)
+            list.add(resolver.getToken().getRaw());
+        return new CompiledPointer(list.toArray(new String[list.size()]));
+    }
+
+    boolean isEmpty()
+    {
+        return tokens.length == 0;
+    }
+
+    /**
+     * Resolve this pointer against a value
+     *
+     * @param node the value
+     * @return the value pointed to, or null if there is none
+     */
+    @Nullable
+    JsonNode get(final JsonNode node)
+    {
+        return resolve(node, tokens.length);
+    }
+
+    /**
+     * Resolve the parent of this pointer against a value
+     *
+     * <p>This pointer must not be empty.</p>
+     *
+     * @param node the value
+     * @return the parent value, or null if there is none
+     */
+    @Nullable
+    JsonNode getParent(final JsonNode node)
+    {
+        return resolve(node, tokens.length - 1);
+    }
+
+    /**
+     * Get the value pointed to, given its parent
+     *
+     * @param parent the parent, as returned by {@link #getParent(JsonNode)}
+     * @return the value, or null if there is none
+     */
+    @Nullable
+    JsonNode getChild(@Nullable final JsonNode parent)
+    {
+        return child(parent, tokens.length - 1);
+    }
+
+    /**
+     * The last reference token of this pointer, which must not be empty
+     */
+    String lastToken()
+    {
+        return tokens[tokens.length - 1];
+    }
+
+    /**
+     * The last reference token of this pointer, as an index of an existing
+     * array element
+     */
+    int lastIndex()
+    {
+        return indices[indices.length - 1];
+    }
+
+    /**
+     * The last reference token of this pointer, as an index where to insert
+     * an array element
+     *
+     * <p>Unlike {@link #lastIndex()}, this accepts any integer; other values
+     * are {@link #APPEND} for {@code -}, {@link #NOT_AN_INDEX} for tokens
+     * which are not integers, and {@link #NEGATIVE_INDEX}.</p>
+     */
+    int insertIndex()
+    {
+        return insertIndex;
+    }
+
+    int size()
+    {
+        return tokens.length;
+    }
+
+    String token(final int index)
+    {
+        return tokens[index];
+    }
+
+    int index(final int index)
+    {
+        return indices[index];
+    }
+
+    @Nullable
+    private JsonNode resolve(final JsonNode node, final int length)
+    {
+        JsonNode ret = node;
+
+        for (int index = 0; index < length && ret != null; index++)
+            ret = child(ret, index);
+        return ret;
+    }
+
+    /**
+     * Get the child of a value designated by one of the reference tokens
+     *
+     * @param node the value
+     * @param index the index of the reference token
+     * @return the child, or null if there is none
+     */
+    @Nullable
+    JsonNode child(@Nullable final JsonNode node, final int index)
+    {
+        if (node == null || !node.isContainerNode())
+            return null;
+        return node.isObject() ? node.get(tokens[index])
+            : node.get(indices[index]);
+    }
+
+    /*
+     * Leading zeroes are not allowed in array indices
+     */
+    private static int arrayIndex(final String token)
+    {
+        if (token.isEmpty())
+            return -1;
+        if (token.charAt(0) == '0')
+            return token.length() > 1 ? -1 : 0;
+        try {
+            return Math.max(-1, Integer.parseInt(token));
+        } catch (NumberFormatException ignored) {
+            return -1;
+        }
+    }
+
+    private static int insertIndex(final String token)
+    {
+        if ("-".equals(token))
+            return APPEND;
+        try {
+            final int ret = Integer.parseInt(token);
+            return ret < 0 ? NEGATIVE_INDEX : ret;
+        } catch (NumberFormatException ignored) {
+            return NOT_AN_INDEX;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Fields of a removed value written as the context of a {@code remove}
+ * operation
+ *
+ * <p>When serialized, a {@link RemoveOperation} generated by a diff writes,
+ * as its {@code original_value }, an object with the text of the given
+ * fields of the value it was generated from (the removed array element, or
+ * the object a member was removed from). A field which the value does not
+ * have is written as {@code "null"}.</p>
+ *
+ * <p>Only a reference to the value is kept by the operation, and fields are
+ * read from it when the operation is serialized.</p>
+ *
+ * @since 1.13
+ */
+@ParametersAreNonnullByDefault
+public final class ContextProjection
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+
+    /**
+     * The identity fields of an entitlement
+     *
+     * <p>These are {@code Application Key}, {@code Entitlement Type} and
+     * {@code Entitlement Name}; this is the projection used by default.</p>
+     */
+    public static final ContextProjection ENTITLEMENT = of("Application Key",
+        "Entitlement Type", "Entitlement Name");
+
+    private final String[] fields;
+    private final SerializableString[] names;
+
+    private ContextProjection(final String[] fields)
+    {
+        this.fields = fields;
+        names = new SerializableString[fields.length];
+        for (int index = 0; index < fields.length; index++)
+            names[index] = new SerializedString(fields[index]);
+    }
+
+    /**
+     * Create a projection
+     *
+     * @param fields the fields to write, in order
+     * @return a projection
+     */
+    public static ContextProjection of(final String... fields)
+    {
+        BUNDLE.checkNotNull(fields, "common.nullArgument");
+        for (final String field: fields)
+            BUNDLE.checkNotNull(field, "common.nullArgument");
+        return new ContextProjection(fields.clone());
+    }
+
+    /**
+     * Return the fields of this projection
+     *
+     * @return an unmodifiable list of field names
+     */
+    public List<String> getFields()
+    {
+        return Collections.unmodifiableList(Arrays.asList(fields));
+    }
+
+    /*
+     * Write the projection of a value
+     */
+    void writeTo(final JsonGenerator jgen, final JsonNode node)
+        throws IOException
+    {
+        jgen.writeStartObject();
+        for (int index = 0; index < fields.length; index++)
+            writeField(jgen, names[index], node.get(fields[index]));
+        jgen.writeEndObject();
+    }
+
+    /*
+     * Write values which have already been projected, in the order of the
+     * fields of this projection
+     */
+    void writeProjected(final JsonGenerator jgen, final JsonNode values)
+        throws IOException
+    {
+        jgen.writeStartObject();
+        for (int index = 0; index < fields.length; index++)
+            writeField(jgen, names[index], values.get(index));
+        jgen.writeEndObject();
+    }
+
+    private static void writeField(final JsonGenerator jgen,
+        final SerializableString name, final JsonNode value)
+        throws IOException
+    {
+        jgen.writeFieldName(name);
+        jgen.writeString(value == null ? "null" : value.asText());
+    }
+
+    @Override
+    public String toString()
+    {
+        return Arrays.toString(fields);
+    }
+}
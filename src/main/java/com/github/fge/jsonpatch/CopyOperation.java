@@ -42,6 +42,7 @@ import com.github.fge.jackson.jsonpointer.JsonPointer;
  */
 public final class CopyOperation
     extends DualPathOperation
+    implements InPlaceOperation
 {
     @JsonCreator
     public CopyOperation(@JsonProperty("from") final JsonPointer from,
@@ -54,10 +55,51 @@ public final class CopyOperation
     public JsonNode apply(final JsonNode node)
         throws JsonPatchException
     {
-        final JsonNode dupData = from.path(node).deepCopy();
-        if (dupData.isMissingNode())
-            throw new JsonPatchException(BUNDLE.getMessage(
-                "jsonPatch.noSuchPath"));
-        return new AddOperation(path, dupData).apply(node);
+        final JsonNode dupData
+            = RemoveOperation.checkPath(compiledFrom(), node);
+        if (path.isEmpty())
+            return dupData.deepCopy();
+        final CompiledPointer pointer = compiledPath();
+        AddOperation.checkParent(pointer, node);
+        final JsonNode ret = node.deepCopy();
+        AddOperation.add(pointer, dupData.deepCopy(), pointer.getParent(ret),
+            UndoLog.discarding());
+        return ret;
+    }
+
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    @Override
+    public JsonNode applyInPlace(final JsonNode node, final UndoLog log)
+        throws JsonPatchException
+    {
+        final JsonNode dupData
+            = RemoveOperation.checkPath(compiledFrom(), node);
+        if (path.isEmpty())
+            return dupData.deepCopy();
+        final CompiledPointer pointer = compiledPath();
+        AddOperation.add(pointer, dupData.deepCopy(),
+            AddOperation.checkParent(pointer, node), log);
+        return node;
+    }
+
+    @Override
+    public JsonNode applySharing(final JsonNode node)
+        throws JsonPatchException
+    {
+        final JsonNode dupData
+            = RemoveOperation.checkPath(compiledFrom(), node);
+        if (path.isEmpty())
+            return dupData;
+        final CompiledPointer pointer = compiledPath();
+        AddOperation.checkParent(pointer, node);
+        final JsonNode ret = PathCopy.copyParents(node, pointer);
+        AddOperation.add(pointer, dupData, pointer.getParent(ret),
+            UndoLog.discarding());
+        return ret;
     }
 }
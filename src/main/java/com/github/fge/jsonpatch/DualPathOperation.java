@@ -21,6 +21,8 @@ package com.github.fge.jsonpatch;
 
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
@@ -39,6 +41,16 @@ public abstract class DualPathOperation
     @JsonSerialize(using = ToStringSerializer.class)
     protected final JsonPointer from;
 
+    /*
+     * See JsonPatchOperation#encodedPath()
+     */
+    private SerializableString encodedFrom;
+
+    /*
+     * See JsonPatchOperation#compiledPath()
+     */
+    private CompiledPointer compiledFrom;
+
     /**
      * Protected constructor
      *
@@ -58,11 +70,42 @@ public abstract class DualPathOperation
         final SerializerProvider provider)
         throws IOException, JsonProcessingException
     {
-        jgen.writeStartObject();
-        jgen.writeStringField("op", op);
-        jgen.writeStringField("path", path.toString());
-        jgen.writeStringField("from", from.toString());
-        jgen.writeEndObject();
+        writeTo(jgen, PatchOutputProfile.AUDIT);
+    }
+
+    final CompiledPointer compiledFrom()
+    {
+        CompiledPointer ret = compiledFrom;
+        if (ret == null) {
+            ret = CompiledPointer.of(from);
+            compiledFrom = ret;
+        }
+        return ret;
+    }
+
+    @Override
+    final void compile()
+    {
+        super.compile();
+        compiledFrom();
+    }
+
+    final SerializableString encodedFrom()
+    {
+        SerializableString ret = encodedFrom;
+        if (ret == null) {
+            ret = new SerializedString(from.toString());
+            encodedFrom = ret;
+        }
+        return ret;
+    }
+
+    @Override
+    final void writeTo(final JsonGenerator jgen,
+        final PatchOutputProfile profile)
+        throws IOException
+    {
+        profile.writeDualPath(jgen, this);
     }
 
     @Override
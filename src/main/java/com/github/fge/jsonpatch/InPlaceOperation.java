@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * A patch operation which can modify the value it is applied to
+ *
+ * <p>Unlike {@link JsonPatchOperation#apply(JsonNode)}, which leaves its
+ * argument untouched, implementations of this interface change the value they
+ * are given, and only allocate the nodes they insert. All modifications go
+ * through the provided {@link UndoLog}.</p>
+ *
+ * <p>They can also be applied without modifying the value at all, by copying
+ * only the containers they modify (see {@link PathCopy}).</p>
+ *
+ * @see JsonPatch#apply(JsonNode, ApplyMode)
+ */
+interface InPlaceOperation
+{
+    /**
+     * Whether this operation never modifies the value it is applied to
+     *
+     * <p>Such an operation returns its input as is, and need not be given a
+     * copy.</p>
+     *
+     * @return true if the value is never modified
+     */
+    boolean isReadOnly();
+
+    /**
+     * Apply this operation to a JSON value, modifying it
+     *
+     * @param node the value to patch
+     * @param log the log to record modifications to
+     * @return the patched value; this is {@code node} unless the operation
+     * replaces the whole value
+     * @throws JsonPatchException operation failed to apply to this value
+     */
+    JsonNode applyInPlace(JsonNode node, UndoLog log)
+        throws JsonPatchException;
+
+    /**
+     * Apply this operation to a JSON value, sharing unmodified values
+     *
+     * <p>Neither the value nor any of its descendants are modified; the
+     * returned value shares all the values this operation does not modify with
+     * the original value.</p>
+     *
+     * @param node the value to patch
+     * @return the patched value
+     * @throws JsonPatchException operation failed to apply to this value
+     */
+    JsonNode applySharing(JsonNode node)
+        throws JsonPatchException;
+}
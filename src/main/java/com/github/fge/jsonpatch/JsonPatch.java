@@ -21,6 +21,7 @@ package com.github.fge.jsonpatch;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.JsonSerializable;
 import com.fasterxml.jackson.databind.SerializerProvider;
@@ -30,9 +31,14 @@ import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Implementation of JSON Patch
@@ -131,9 +137,106 @@ public final class JsonPatch
             .readValue(node);
     }
 
+    /**
+     * Read a patch from a parser, without building a tree of the patch
+     *
+     * <p>The parser must be positioned on the patch array, or before it; it
+     * is left positioned on the end of the array.</p>
+     *
+     * @param parser the parser
+     * @return a JSON Patch
+     * @throws IOException input is not a valid JSON patch, or failed to read
+     * from the parser
+     * @throws NullPointerException parser is null
+     * @see JsonPatchReader
+     *
+     * @since 1.13
+     */
+    public static JsonPatch fromParser(final JsonParser parser)
+        throws IOException
+    {
+        final JsonPatchReader reader = new JsonPatchReader(parser);
+        final List<JsonPatchOperation> list
+            = new ArrayList<JsonPatchOperation>();
+
+        while (reader.hasNextOperation())
+            list.add(reader.nextOperation());
+        return new JsonPatch(list);
+    }
+
+    /**
+     * Read a patch from a stream
+     *
+     * <p>The stream is not closed.</p>
+     *
+     * @param in the stream to read from
+     * @param format the format of the patch
+     * @return a JSON Patch
+     * @throws IOException input is not a valid JSON patch, or failed to read
+     * from the stream
+     * @throws NullPointerException input or format is null
+     *
+     * @since 1.13
+     */
+    public static JsonPatch readFrom(final InputStream in,
+        final PatchFormat format)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(in, "jsonPatch.nullInput");
+        BUNDLE.checkNotNull(format, "common.nullArgument");
+        return format.read(in);
+    }
+
+    /**
+     * Build a single patch out of patches applied one after the other
+     *
+     * <p>Applying the resulting patch to a value gives the same result as
+     * applying all patches in order, with a single copy of the value.
+     * Operations of the resulting patch are rewritten by {@link
+     * JsonPatchOptimizer}, so that values successively replaced by the
+     * different patches are only written once.</p>
+     *
+     * @param patches the patches, in the order in which they apply
+     * @return a JSON Patch
+     * @throws NullPointerException one of the patches is null
+     *
+     * @since 1.13
+     */
+    public static JsonPatch compose(final JsonPatch... patches)
+    {
+        BUNDLE.checkNotNull(patches, "jsonPatch.nullInput");
+
+        final List<JsonPatchOperation> list
+            = new ArrayList<JsonPatchOperation>();
+
+        for (final JsonPatch patch: patches) {
+            BUNDLE.checkNotNull(patch, "jsonPatch.nullInput");
+            list.addAll(patch.operations);
+        }
+        return JsonPatchOptimizer.optimize(new JsonPatch(list));
+    }
+
+    /**
+     * Prepare this patch to be applied to many values
+     *
+     * <p>The JSON Pointers of all operations are parsed once and for all; see
+     * {@link JsonPatchPlan}.</p>
+     *
+     * @return a plan applying the same operations as this patch
+     *
+     * @since 1.13
+     */
+    public JsonPatchPlan compile()
+    {
+        return new JsonPatchPlan(operations);
+    }
+
     /**
      * Apply this patch to a JSON value
      *
+     * <p>The value is left untouched; this is the same as calling {@link
+     * #apply(JsonNode, ApplyMode)} with {@link ApplyMode#COPY}.</p>
+     *
      * @param node the value to apply the patch to
      * @return the patched JSON value
      * @throws JsonPatchException failed to apply patch
@@ -142,13 +245,171 @@ public final class JsonPatch
     @Override
     public JsonNode apply(final JsonNode node)
         throws JsonPatchException
+    {
+        return apply(node, ApplyMode.COPY);
+    }
+
+    /**
+     * Apply this patch to a JSON value, either to a copy of it or to the value
+     * itself
+     *
+     * <p>In both modes, operations of this package modify one single value
+     * instead of copying the value they are applied to: with {@link
+     * ApplyMode#COPY}, this value is a copy of the input, made before the
+     * first operation which needs it; with {@link ApplyMode#MUTATE}, this is
+     * the input itself. In the latter case, changes are recorded, and undone if
+     * an operation fails.</p>
+     *
+     * <p>With {@link ApplyMode#SHARE}, operations of this package copy only
+     * the containers they modify, and the result shares all other values with
+     * the input.</p>
+     *
+     * <p>Other implementations of {@link JsonPatchOperation} are applied as
+     * usual, using {@link JsonPatchOperation#apply(JsonNode)}.</p>
+     *
+     * @param node the value to apply the patch to
+     * @param mode whether to leave the input value untouched
+     * @return the patched JSON value
+     * @throws JsonPatchException failed to apply patch
+     * @throws NullPointerException input or mode is null
+     * @since 1.13
+     */
+    public JsonNode apply(final JsonNode node, final ApplyMode mode)
+        throws JsonPatchException
     {
         BUNDLE.checkNotNull(node, "jsonPatch.nullInput");
-        JsonNode ret = node;
-        for (final JsonPatchOperation operation: operations)
-            ret = operation.apply(ret);
+        BUNDLE.checkNotNull(mode, "common.nullArgument");
+
+        return Applier.applyAll(operations, node, mode);
+    }
 
-        return ret;
+    /**
+     * Apply this patch to a collection of values, concurrently
+     *
+     * <p>The patch is compiled once (see {@link #compile()}), then applied to
+     * each value by the executor; failures to apply to some values do not
+     * prevent applying to the others. See {@link
+     * JsonPatchPlan#applyAll(Collection, ApplyMode, Executor)} for details.
+     * </p>
+     *
+     * @param nodes the values to apply the patch to; they are left untouched
+     * @param executor the executor to apply the patch with
+     * @return the results, in the order of the collection
+     * @throws InterruptedException interrupted while waiting for results
+     * @throws RejectedExecutionException the executor rejected a value
+     * @throws NullPointerException an argument or a value is null
+     * @see PatchExecutors
+     *
+     * @since 1.13
+     */
+    public BatchResult applyAll(final Collection<? extends JsonNode> nodes,
+        final Executor executor)
+        throws InterruptedException
+    {
+        return compile().applyAll(nodes, ApplyMode.COPY, executor);
+    }
+
+    /**
+     * Apply a patch to a JSON value as it is read
+     *
+     * <p>This is the same as calling {@link #applyStreaming(JsonParser,
+     * JsonNode, ApplyMode)} with {@link ApplyMode#COPY}.</p>
+     *
+     * @param patchSource the parser to read the patch from
+     * @param target the value to apply the patch to
+     * @return the patched JSON value
+     * @throws IOException the patch is invalid, or failed to read from the
+     * parser
+     * @throws JsonPatchException failed to apply patch
+     * @throws NullPointerException an argument is null
+     *
+     * @since 1.13
+     */
+    public static JsonNode applyStreaming(final JsonParser patchSource,
+        final JsonNode target)
+        throws IOException, JsonPatchException
+    {
+        return applyStreaming(patchSource, target, ApplyMode.COPY);
+    }
+
+    /**
+     * Apply a patch to a JSON value as it is read
+     *
+     * <p>Each operation is applied as soon as it is read (see {@link
+     * JsonPatchReader}), and then dropped: the patch is never held in memory
+     * as a whole. Operations are applied as {@link #apply(JsonNode, ApplyMode)}
+     * does; with {@link ApplyMode#MUTATE}, changes are also undone if the
+     * patch turns out to be invalid after some operations were applied.</p>
+     *
+     * @param patchSource the parser to read the patch from
+     * @param target the value to apply the patch to
+     * @param mode whether to leave the input value untouched
+     * @return the patched JSON value
+     * @throws IOException the patch is invalid, or failed to read from the
+     * parser
+     * @throws JsonPatchException failed to apply patch
+     * @throws NullPointerException an argument is null
+     *
+     * @since 1.13
+     */
+    public static JsonNode applyStreaming(final JsonParser patchSource,
+        final JsonNode target, final ApplyMode mode)
+        throws IOException, JsonPatchException
+    {
+        BUNDLE.checkNotNull(target, "jsonPatch.nullInput");
+        BUNDLE.checkNotNull(mode, "common.nullArgument");
+
+        final JsonPatchReader reader = new JsonPatchReader(patchSource);
+        final Applier applier = new Applier(target, mode);
+        boolean done = false;
+
+        try {
+            while (reader.hasNextOperation())
+                applier.apply(reader.nextOperation());
+            done = true;
+        } finally {
+            if (!done)
+                applier.revert();
+        }
+
+        return applier.getValue();
+    }
+
+    /**
+     * Apply this patch to a JSON value, and return all successive versions of
+     * this value
+     *
+     * <p>The first element of the returned list is the input value, and the
+     * element at index {@code n + 1} is the value after the {@code n}-th
+     * operation was applied; the last element is the patched value.</p>
+     *
+     * <p>Versions are computed as {@link ApplyMode#SHARE} does: each of them
+     * shares unmodified values with the previous one, so that keeping all of
+     * them only costs the containers each operation modifies. For the same
+     * reason, none of them should be modified.</p>
+     *
+     * @param node the value to apply the patch to
+     * @return the list of versions of the value
+     * @throws JsonPatchException failed to apply patch
+     * @throws NullPointerException input is null
+     * @since 1.13
+     */
+    public List<JsonNode> applyWithHistory(final JsonNode node)
+        throws JsonPatchException
+    {
+        BUNDLE.checkNotNull(node, "jsonPatch.nullInput");
+
+        final List<JsonNode> ret
+            = new ArrayList<JsonNode>(operations.size() + 1);
+
+        JsonNode version = node;
+        ret.add(version);
+        for (final JsonPatchOperation operation: operations) {
+            version = Applier.applySharing(operation, version);
+            ret.add(version);
+        }
+
+        return Collections.unmodifiableList(ret);
     }
 
     public final List<JsonPatchOperation> getOperations() {
@@ -172,6 +433,76 @@ public final class JsonPatch
         jgen.writeEndArray();
     }
 
+    /**
+     * Write this patch with the given output profile
+     *
+     * <p>Serializing the patch with Jackson is the same as writing it with
+     * {@link PatchOutputProfile#AUDIT}.</p>
+     *
+     * @param jgen the generator to write to
+     * @param profile the output profile
+     * @throws IOException failed to write to the generator
+     *
+     * @since 1.13
+     */
+    public void writeTo(final JsonGenerator jgen,
+        final PatchOutputProfile profile)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(jgen, "common.nullArgument");
+        BUNDLE.checkNotNull(profile, "common.nullArgument");
+        jgen.writeStartArray();
+        for (final JsonPatchOperation op: operations)
+            op.writeTo(jgen, profile);
+        jgen.writeEndArray();
+    }
+
+    /**
+     * Write this patch to a stream, as defined by RFC 6902
+     *
+     * <p>This is the same as calling {@link #writeTo(OutputStream,
+     * PatchFormat, PatchOutputProfile)} with {@link
+     * PatchOutputProfile#STRICT}, which is the profile to use for patches
+     * meant to be read back with {@link #readFrom(InputStream, PatchFormat)}.
+     * </p>
+     *
+     * @param out the stream to write to
+     * @param format the format to write the patch in
+     * @throws IOException failed to write to the stream
+     *
+     * @since 1.13
+     */
+    public void writeTo(final OutputStream out, final PatchFormat format)
+        throws IOException
+    {
+        writeTo(out, format, PatchOutputProfile.STRICT);
+    }
+
+    /**
+     * Write this patch to a stream with the given output profile
+     *
+     * <p>The stream is flushed, but not closed.</p>
+     *
+     * @param out the stream to write to
+     * @param format the format to write the patch in
+     * @param profile the output profile
+     * @throws IOException failed to write to the stream
+     *
+     * @since 1.13
+     */
+    public void writeTo(final OutputStream out, final PatchFormat format,
+        final PatchOutputProfile profile)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(out, "common.nullArgument");
+        BUNDLE.checkNotNull(format, "common.nullArgument");
+
+        final JsonGenerator jgen = format.createGenerator(out);
+
+        writeTo(jgen, profile);
+        jgen.close();
+    }
+
     @Override
     public void serializeWithType(final JsonGenerator jgen,
         final SerializerProvider provider, final TypeSerializer typeSer)
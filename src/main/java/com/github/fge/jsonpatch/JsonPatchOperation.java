@@ -22,12 +22,17 @@ package com.github.fge.jsonpatch;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.JsonSerializable;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 
+import java.io.IOException;
+
 import static com.fasterxml.jackson.annotation.JsonSubTypes.*;
 import static com.fasterxml.jackson.annotation.JsonTypeInfo.*;
 
@@ -73,6 +78,18 @@ public abstract class JsonPatchOperation
     protected final JsonPointer path;
     protected final JsonNode value;
 
+    /*
+     * The path as written, computed on first use; SerializedString also keeps
+     * its encoded forms once computed. Since SerializedString is immutable,
+     * concurrent computations only lead to equivalent instances.
+     */
+    private SerializableString encodedPath;
+
+    /*
+     * The path, parsed on first use; as above, CompiledPointer is immutable
+     */
+    private CompiledPointer compiledPath;
+
     /**
      * Constructor
      *
@@ -96,6 +113,44 @@ public abstract class JsonPatchOperation
     public abstract JsonNode apply(final JsonNode node)
         throws JsonPatchException;
 
+    final CompiledPointer compiledPath()
+    {
+        CompiledPointer ret = compiledPath;
+        if (ret == null) {
+            ret = CompiledPointer.of(path);
+            compiledPath = ret;
+        }
+        return ret;
+    }
+
+    /*
+     * Parse the pointers of this operation now rather than on first use
+     */
+    void compile()
+    {
+        compiledPath();
+    }
+
+    final SerializableString encodedPath()
+    {
+        SerializableString ret = encodedPath;
+        if (ret == null) {
+            ret = new SerializedString(path.toString());
+            encodedPath = ret;
+        }
+        return ret;
+    }
+
+    /*
+     * Write this operation as defined by the given profile; operations which
+     * the profile does not know about write themselves.
+     */
+    void writeTo(final JsonGenerator jgen, final PatchOutputProfile profile)
+        throws IOException
+    {
+        jgen.writeObject(this);
+    }
+
     public final String getOp() {
         return op;
     }
@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jackson.jsonpointer.TokenResolver;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.Nullable;
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rewriting of a JSON Patch into a shorter, equivalent one
+ *
+ * <p>Operations are read in order; each of them is checked against the last
+ * previous operation which involves the same path, an ancestor or descendant
+ * of it, or an element of the same array (since adding or removing an array
+ * element shifts the elements after it). If there is no operation in
+ * between involving this path, these rewrites are made:</p>
+ *
+ * <ul>
+ *     <li>{@code move} from a path to the same path: the operation is dropped;
+ *     </li>
+ *     <li>{@code replace} after {@code replace}: only the second one is kept;
+ *     </li>
+ *     <li>{@code replace} after {@code add} or {@code copy}: the value is
+ *     added directly;</li>
+ *     <li>{@code add} after {@code remove}: both are turned into a {@code
+ *     replace};</li>
+ *     <li>{@code remove} after {@code replace}: only the removal is kept.</li>
+ * </ul>
+ *
+ * <p>Since rewrites combine pairs of operations into a single one, chains of
+ * redundant operations on a path are reduced to at most one or two
+ * operations.</p>
+ *
+ * <p>The optimized patch gives the same result as the original one for all
+ * values the original patch applies to. It may however apply to values the
+ * original patch fails on: for instance, the source of a {@code copy} is no
+ * longer required to exist if the copied value is replaced afterwards.</p>
+ *
+ * <p>An {@code add} followed by a {@code remove} of the same path is only
+ * removed if it follows a {@code remove} of this path as well (the rewrites
+ * above then turn the three operations into one removal): otherwise, the
+ * path may be an existing object member, which the {@code add} replaces.</p>
+ *
+ * <p>Only the last {@value #MAX_DISTANCE} operations are looked at, so that
+ * patches of any size are optimized in linear time; operations further
+ * apart are left as they are. Operations of other implementations than the
+ * ones of this package are never rewritten, and are considered to involve all
+ * paths.</p>
+ *
+ * @since 1.13
+ */
+@ParametersAreNonnullByDefault
+public final class JsonPatchOptimizer
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+
+    /**
+     * Maximum number of previous operations an operation is checked against
+     */
+    public static final int MAX_DISTANCE = 256;
+
+    private JsonPatchOptimizer()
+    {
+    }
+
+    /**
+     * Optimize a patch
+     *
+     * @param patch the patch
+     * @return an equivalent patch, which may be the same instance
+     */
+    public static JsonPatch optimize(final JsonPatch patch)
+    {
+        BUNDLE.checkNotNull(patch, "jsonPatch.nullInput");
+
+        final List<Step> steps = new ArrayList<Step>();
+
+        for (final JsonPatchOperation op: patch.getOperations())
+            push(steps, new Step(op));
+
+        if (steps.size() == patch.getOperations().size())
+            return patch;
+
+        final List<JsonPatchOperation> list
+            = new ArrayList<JsonPatchOperation>(steps.size());
+
+        for (final Step step: steps)
+            list.add(step.op);
+        return new JsonPatch(list);
+    }
+
+    private static void push(final List<Step> steps, final Step step)
+    {
+        final JsonPatchOperation op = step.op;
+
+        if (op instanceof MoveOperation
+            && ((MoveOperation) op).from.equals(op.path))
+            return;
+
+        if (!step.known || step.from != null) {
+            steps.add(step);
+            return;
+        }
+
+        final int index = lastRelated(steps, step);
+
+        if (index == -1) {
+            steps.add(step);
+            return;
+        }
+
+        final Step previous = steps.get(index);
+
+        /*
+         * Rewrites only apply to operations on the very same path, other than
+         * the root
+         */
+        if (!previous.known || step.path.length == 0
+            || !Arrays.equals(previous.path, step.path)) {
+            steps.add(step);
+            return;
+        }
+
+        final JsonPatchOperation rewritten = rewrite(previous, step);
+
+        if (rewritten == null) {
+            steps.add(step);
+            return;
+        }
+
+        /*
+         * The rewritten operation may itself combine with an earlier one
+         */
+        steps.remove(index);
+        final List<Step> tail = new ArrayList<Step>(
+            steps.subList(index, steps.size()));
+        steps.subList(index, steps.size()).clear();
+        push(steps, new Step(rewritten));
+        steps.addAll(tail);
+    }
+
+    @Nullable
+    private static JsonPatchOperation rewrite(final Step previous,
+        final Step step)
+    {
+        final JsonPatchOperation before = previous.op;
+        final JsonPatchOperation op = step.op;
+        final JsonPointer path = op.path;
+
+        if (op instanceof ReplaceOperation) {
+            if (before instanceof ReplaceOperation)
+                return op;
+            if (previous.appends)
+                return null;
+            if (before instanceof AddOperation
+                || before instanceof CopyOperation)
+                return new AddOperation(path, op.value);
+            return null;
+        }
+
+        if (op instanceof AddOperation) {
+            if (step.appends || !(before instanceof RemoveOperation))
+                return null;
+            return new ReplaceOperation(path, op.value);
+        }
+
+        if (op instanceof RemoveOperation && before instanceof ReplaceOperation)
+            return op;
+
+        return null;
+    }
+
+    /*
+     * Index of the last step, before the given index, related to the given
+     * step; -1 if there is none within MAX_DISTANCE steps
+     */
+    private static int lastRelated(final List<Step> steps, final Step step)
+    {
+        final int end = steps.size();
+        final int start = Math.max(0, end - MAX_DISTANCE);
+
+        for (int index = end - 1; index >= start; index--)
+            if (related(steps.get(index), step))
+                return index;
+        return -1;
+    }
+
+    private static boolean related(final Step first, final Step second)
+    {
+        if (!first.known || !second.known)
+            return true;
+        if (related(first.path, second.path))
+            return true;
+        if (first.from != null && related(first.from, second.path))
+            return true;
+        if (second.from == null)
+            return false;
+        return related(first.path, second.from)
+            || first.from != null && related(first.from, second.from);
+    }
+
+    /*
+     * Two paths are related if one of them is a prefix of the other one, or if
+     * they go through two elements of the same array: adding or removing an
+     * element shifts the ones after it. Tokens which are not array indices
+     * can only be object members if the operation succeeds.
+     */
+    private static boolean related(final String[] first,
+        final String[] second)
+    {
+        return isPrefix(first, first.length, second)
+            || isPrefix(second, second.length, first)
+            || throughSameArray(first, second)
+            || throughSameArray(second, first);
+    }
+
+    private static boolean isPrefix(final String[] tokens, final int length,
+        final String[] other)
+    {
+        if (length > other.length)
+            return false;
+        for (int index = 0; index < length; index++)
+            if (!tokens[index].equals(other[index]))
+                return false;
+        return true;
+    }
+
+    private static boolean throughSameArray(final String[] tokens,
+        final String[] other)
+    {
+        final int last = tokens.length - 1;
+
+        return last < other.length && isPrefix(tokens, last, other)
+            && isIndex(tokens[last]) && isIndex(other[last]);
+    }
+
+    private static boolean isIndex(final String token)
+    {
+        if ("-".equals(token))
+            return true;
+        if (token.isEmpty())
+            return false;
+        for (int index = 0; index < token.length(); index++)
+            if (!Character.isDigit(token.charAt(index)))
+                return false;
+        return true;
+    }
+
+    private static final class Step
+    {
+        private final JsonPatchOperation op;
+        /*
+         * Whether the operation is one of this package
+         */
+        private final boolean known;
+        private final String[] path;
+        @Nullable
+        private final String[] from;
+        /*
+         * Whether the path is the end of an array ("-")
+         */
+        private final boolean appends;
+
+        private Step(final JsonPatchOperation op)
+        {
+            this.op = op;
+            known = op instanceof AddOperation || op instanceof CopyOperation
+                || op instanceof MoveOperation || op instanceof RemoveOperation
+                || op instanceof ReplaceOperation
+                || op instanceof TestOperation;
+            path = tokens(op.path);
+            from = op instanceof DualPathOperation
+                ? tokens(((DualPathOperation) op).from) : null;
+            appends = path.length > 0 && "-".equals(path[path.length - 1]);
+        }
+
+        private static String[] tokens(final JsonPointer pointer)
+        {
+            final List<String> list = new ArrayList<String>();
+
+            for (final TokenResolver<JsonNode> resolver: pointer)
+                list.add(resolver.getToken().getRaw());
+            return list.toArray(new String[list.size()]);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A JSON Patch prepared to be applied to many values
+ *
+ * <p>Operations parse their JSON Pointers on first use: array indices, the
+ * last reference token and the parent of each pointer are computed once, and
+ * reused for all values the operation is applied to afterwards. A plan does
+ * all of this work up front, so that applying it to a value involves no
+ * parsing at all.</p>
+ *
+ * <p>Instances of this class are immutable, and can be applied to values from
+ * several threads at once.</p>
+ *
+ * @see JsonPatch#compile()
+ * @since 1.13
+ */
+public final class JsonPatchPlan
+    implements Patch
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+
+    private final List<JsonPatchOperation> operations;
+
+    JsonPatchPlan(final List<JsonPatchOperation> operations)
+    {
+        for (final JsonPatchOperation operation: operations)
+            operation.compile();
+        this.operations = Collections.unmodifiableList(
+            new ArrayList<JsonPatchOperation>(operations));
+    }
+
+    /**
+     * Apply this plan to a JSON value
+     *
+     * <p>The value is left untouched; this is the same as calling {@link
+     * #apply(JsonNode, ApplyMode)} with {@link ApplyMode#COPY}.</p>
+     *
+     * @param node the value to apply the plan to
+     * @return the patched JSON value
+     * @throws JsonPatchException failed to apply patch
+     * @throws NullPointerException input is null
+     */
+    @Override
+    public JsonNode apply(final JsonNode node)
+        throws JsonPatchException
+    {
+        return apply(node, ApplyMode.COPY);
+    }
+
+    /**
+     * Apply this plan to a JSON value
+     *
+     * @param node the value to apply the plan to
+     * @param mode whether to leave the input value untouched
+     * @return the patched JSON value
+     * @throws JsonPatchException failed to apply patch
+     * @throws NullPointerException input or mode is null
+     * @see JsonPatch#apply(JsonNode, ApplyMode)
+     */
+    public JsonNode apply(final JsonNode node, final ApplyMode mode)
+        throws JsonPatchException
+    {
+        BUNDLE.checkNotNull(node, "jsonPatch.nullInput");
+        BUNDLE.checkNotNull(mode, "common.nullArgument");
+        return Applier.applyAll(operations, node, mode);
+    }
+
+    /**
+     * Apply this plan to a collection of values, concurrently
+     *
+     * <p>This is the same as calling {@link #applyAll(Collection, ApplyMode,
+     * Executor)} with {@link ApplyMode#COPY}.</p>
+     *
+     * @param nodes the values to apply the plan to
+     * @param executor the executor to apply the plan with
+     * @return the results
+     * @throws InterruptedException interrupted while waiting for results
+     * @throws RejectedExecutionException the executor rejected a value
+     * @throws NullPointerException an argument or a value is null
+     */
+    public BatchResult applyAll(final Collection<? extends JsonNode> nodes,
+        final Executor executor)
+        throws InterruptedException
+    {
+        return applyAll(nodes, ApplyMode.COPY, executor);
+    }
+
+    /**
+     * Apply this plan to a collection of values, concurrently
+     *
+     * <p>The plan is applied to each value in a separate task run by the
+     * executor (see {@link PatchExecutors}). This method returns once all
+     * tasks are done. If the plan fails to apply to a value, the failure is
+     * recorded in the results, and other values are patched as usual.</p>
+     *
+     * <p>If the executor rejects a task, no more tasks are submitted; this
+     * method waits for tasks already submitted, then throws the exception.
+     * Unexpected exceptions thrown by tasks are thrown in the same way.</p>
+     *
+     * @param nodes the values to apply the plan to
+     * @param mode how to apply the plan to each value
+     * @param executor the executor to apply the plan with
+     * @return the results, in the order of the collection
+     * @throws InterruptedException interrupted while waiting for results
+     * @throws RejectedExecutionException the executor rejected a value
+     * @throws NullPointerException an argument or a value is null
+     */
+    public BatchResult applyAll(final Collection<? extends JsonNode> nodes,
+        final ApplyMode mode, final Executor executor)
+        throws InterruptedException
+    {
+        BUNDLE.checkNotNull(nodes, "jsonPatch.nullInput");
+        BUNDLE.checkNotNull(mode, "common.nullArgument");
+        BUNDLE.checkNotNull(executor, "common.nullArgument");
+
+        final JsonNode[] values = nodes.toArray(new JsonNode[nodes.size()]);
+
+        for (final JsonNode value: values)
+            BUNDLE.checkNotNull(value, "jsonPatch.nullInput");
+
+        final JsonNode[] results = new JsonNode[values.length];
+        final JsonPatchException[] failures
+            = new JsonPatchException[values.length];
+        final AtomicReference<Throwable> unexpected
+            = new AtomicReference<Throwable>();
+        final Semaphore done = new Semaphore(0);
+
+        int submitted = 0;
+
+        try {
+            for (; submitted < values.length; submitted++) {
+                final int index = submitted;
+                executor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try {
+                            results[index] = apply(values[index], mode);
+                        } catch (JsonPatchException e) {
+                            failures[index] = e;
+                        } catch (RuntimeException | Error e) {
+                            unexpected.compareAndSet(null, e);
+                        } finally {
+                            done.release();
+                        }
+                    }
+                });
+            }
+        } finally {
+            if (submitted < values.length)
+                done.acquireUninterruptibly(submitted);
+        }
+
+        done.acquire(submitted);
+
+        final Throwable failure = unexpected.get();
+
+        if (failure instanceof Error)
+            throw (Error) failure;
+        if (failure != null)
+            throw (RuntimeException) failure;
+        return new BatchResult(results, failures);
+    }
+
+    @Override
+    public String toString()
+    {
+        return operations.toString();
+    }
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jackson.jsonpointer.JsonPointerException;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.Nullable;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Reader of the operations of a JSON Patch, one at a time
+ *
+ * <p>Operations are read directly from a {@link JsonParser} positioned on the
+ * patch array (or before it): only the operation being read is held in
+ * memory, and only its {@code value} member, if any, is read as a tree.
+ * Members of an operation can appear in any order; as with {@link
+ * JsonPatch#fromJson(JsonNode)}, unknown members are ignored, and if a member
+ * appears more than once, the last one wins.</p>
+ *
+ * <p>Operations can be read either with {@link #hasNextOperation()} and {@link
+ * #nextOperation()}, which throw {@link IOException}s, or by using this reader
+ * as an {@link Iterator}, in which case errors are thrown as unchecked
+ * exceptions: {@link RuntimeJsonMappingException} if the patch is invalid,
+ * and {@link RuntimeException} for other errors.</p>
+ *
+ * <p>Readers are not thread safe.</p>
+ *
+ * @since 1.13
+ */
+public final class JsonPatchReader
+    implements Iterator<JsonPatchOperation>, Closeable
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+    private static final ObjectReader READER = JacksonUtils.getReader();
+
+    private final JsonParser parser;
+
+    /*
+     * Token starting the next operation, or ending the patch; null if not
+     * read yet
+     */
+    @Nullable
+    private JsonToken next = null;
+
+    /**
+     * Constructor
+     *
+     * @param parser the parser to read from
+     * @throws IOException failed to read from the parser, or it is not
+     * positioned on an array
+     */
+    public JsonPatchReader(final JsonParser parser)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(parser, "jsonPatch.nullInput");
+        this.parser = parser;
+
+        JsonToken token = parser.getCurrentToken();
+
+        if (token == null)
+            token = parser.nextToken();
+        if (token != JsonToken.START_ARRAY)
+            throw JsonMappingException.from(parser,
+                BUNDLE.printf("jsonPatch.notAnArray", token));
+    }
+
+    /**
+     * Tell whether there are operations left to read
+     *
+     * @return true if there is at least one more operation
+     * @throws IOException failed to read from the parser, or the patch is
+     * invalid
+     */
+    public boolean hasNextOperation()
+        throws IOException
+    {
+        if (next == null)
+            next = parser.nextToken();
+        if (next == JsonToken.START_OBJECT)
+            return true;
+        if (next == JsonToken.END_ARRAY)
+            return false;
+        throw JsonMappingException.from(parser,
+            BUNDLE.printf("jsonPatch.notAnObject", next));
+    }
+
+    /**
+     * Read the next operation
+     *
+     * @return the operation
+     * @throws IOException failed to read from the parser, or the operation is
+     * invalid
+     * @throws NoSuchElementException there are no operations left
+     */
+    public JsonPatchOperation nextOperation()
+        throws IOException
+    {
+        if (!hasNextOperation())
+            throw new NoSuchElementException();
+        next = null;
+        return readOperation();
+    }
+
+    @Override
+    public boolean hasNext()
+    {
+        try {
+            return hasNextOperation();
+        } catch (JsonMappingException e) {
+            throw new RuntimeJsonMappingException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public JsonPatchOperation next()
+    {
+        try {
+            return nextOperation();
+        } catch (JsonMappingException e) {
+            throw new RuntimeJsonMappingException(e.getMessage(), e);
+        } catch (IOException e) {
+            throw new RuntimeException(e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void remove()
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Close the underlying parser
+     *
+     * @throws IOException failed to close the parser
+     */
+    @Override
+    public void close()
+        throws IOException
+    {
+        parser.close();
+    }
+
+    private JsonPatchOperation readOperation()
+        throws IOException
+    {
+        String op = null;
+        JsonPointer path = null;
+        JsonPointer from = null;
+        JsonNode value = null;
+
+        String name;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            name = parser.getCurrentName();
+            parser.nextToken();
+            switch (name) {
+                case "op":
+                    op = readString(name);
+                    break;
+                case "path":
+                    path = readPointer(name);
+                    break;
+                case "from":
+                    from = readPointer(name);
+                    break;
+                case "value":
+                    value = READER.readTree(parser);
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+
+        if (op == null)
+            throw JsonMappingException.from(parser,
+                BUNDLE.getMessage("jsonPatch.missingOp"));
+        checkMember(op, "path", path);
+
+        switch (op) {
+            case "add":
+                checkMember(op, "value", value);
+                return new AddOperation(path, value);
+            case "copy":
+                checkMember(op, "from", from);
+                return new CopyOperation(from, path, value);
+            case "move":
+                checkMember(op, "from", from);
+                return new MoveOperation(from, path, value);
+            case "remove":
+                return new RemoveOperation(path, value);
+            case "replace":
+                checkMember(op, "value", value);
+                return new ReplaceOperation(path, value);
+            case "test":
+                checkMember(op, "value", value);
+                return new TestOperation(path, value);
+            default:
+                throw JsonMappingException.from(parser,
+                    BUNDLE.printf("jsonPatch.unknownOperation", op));
+        }
+    }
+
+    private String readString(final String name)
+        throws IOException
+    {
+        if (parser.getCurrentToken() != JsonToken.VALUE_STRING)
+            throw JsonMappingException.from(parser,
+                BUNDLE.printf("jsonPatch.notAString", name,
+                    parser.getCurrentToken()));
+        return parser.getText();
+    }
+
+    private JsonPointer readPointer(final String name)
+        throws IOException
+    {
+        final String input = readString(name);
+
+        try {
+            return new JsonPointer(input);
+        } catch (JsonPointerException e) {
+            throw JsonMappingException.from(parser, e.getMessage(), e);
+        }
+    }
+
+    private void checkMember(final String op, final String name,
+        @Nullable final Object member)
+        throws JsonMappingException
+    {
+        if (member == null)
+            throw JsonMappingException.from(parser,
+                BUNDLE.printf("jsonPatch.missingMember", op, name));
+    }
+}
@@ -22,6 +22,7 @@ package com.github.fge.jsonpatch;
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.MissingNode;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
 
 /**
@@ -61,9 +62,13 @@ import com.github.fge.jackson.jsonpointer.JsonPointer;
  * <pre>
  *     [ { "x": "victim" } ]
  * </pre>
+ *
+ * <p>Moving a value to where it already is does nothing: the value the
+ * operation is applied to is then returned as is, without being copied.</p>
  */
 public final class MoveOperation
     extends DualPathOperation
+    implements InPlaceOperation
 {
     @JsonCreator
     public MoveOperation(@JsonProperty("from") final JsonPointer from,
@@ -73,18 +78,79 @@ public final class MoveOperation
         super("move", from, path,value);
     }
 
+    @Override
+    public boolean isReadOnly()
+    {
+        return from.equals(path);
+    }
+
     @Override
     public JsonNode apply(final JsonNode node)
         throws JsonPatchException
     {
         if (from.equals(path))
-            return node.deepCopy();
-        final JsonNode movedNode = from.path(node);
-        if (movedNode.isMissingNode())
+            return node;
+        return applyInPlace(node.deepCopy(), UndoLog.discarding());
+    }
+
+    @Override
+    public JsonNode applyInPlace(final JsonNode node, final UndoLog log)
+        throws JsonPatchException
+    {
+        if (from.equals(path))
+            return node;
+        final CompiledPointer source = compiledFrom();
+        /*
+         * The moved value is detached from the document, so it can be added
+         * back as is
+         */
+        final JsonNode root;
+        final JsonNode movedNode;
+        if (from.isEmpty()) {
+            RemoveOperation.checkPath(source, node);
+            root = MissingNode.getInstance();
+            movedNode = node;
+        } else {
+            root = node;
+            movedNode = RemoveOperation.remove(source,
+                RemoveOperation.checkParent(source, node), log);
+        }
+        if (path.isEmpty())
+            return movedNode;
+        final CompiledPointer target = compiledPath();
+        AddOperation.add(target, movedNode,
+            AddOperation.checkParent(target, root), log);
+        return root;
+    }
+
+    @Override
+    public JsonNode applySharing(final JsonNode node)
+        throws JsonPatchException
+    {
+        if (from.equals(path))
+            return node;
+        final CompiledPointer source = compiledFrom();
+        RemoveOperation.checkPath(source, node);
+        /*
+         * Once the root value is moved, there is nowhere to move it to
+         */
+        if (from.isEmpty())
             throw new JsonPatchException(BUNDLE.getMessage(
-                "jsonPatch.noSuchPath"));
-        final JsonPatchOperation remove = new RemoveOperation(from, value );
-        final JsonPatchOperation add = new AddOperation(path, movedNode);
-        return add.apply(remove.apply(node));
+                "jsonPatch.noSuchParent"));
+        /*
+         * Indices along the destination path may change once the value is
+         * removed, so containers along this path can only be copied then
+         */
+        JsonNode ret = PathCopy.copyParents(node, source);
+        final UndoLog log = UndoLog.discarding();
+        final JsonNode movedNode = RemoveOperation.remove(source,
+            source.getParent(ret), log);
+        if (path.isEmpty())
+            return movedNode;
+        final CompiledPointer target = compiledPath();
+        AddOperation.checkParent(target, ret);
+        ret = PathCopy.copyParents(ret, target);
+        AddOperation.add(target, movedNode, target.getParent(ret), log);
+        return ret;
     }
 }
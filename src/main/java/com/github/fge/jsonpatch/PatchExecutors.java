@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.Nullable;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Executors to apply patches to collections of values with
+ *
+ * <p>Applying a patch to a value only uses the processor, so that platform
+ * threads, one per processor, suit most cases. Virtual threads (available from
+ * Java 21 on) are an alternative when values are applied to as they are
+ * produced by blocking code, such as reads from a database.</p>
+ *
+ * <p>Executors returned by this class must be shut down by the caller.</p>
+ *
+ * @see JsonPatchPlan#applyAll(java.util.Collection, ApplyMode,
+ * java.util.concurrent.Executor)
+ * @since 1.13
+ */
+public final class PatchExecutors
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+
+    /*
+     * Executors#newVirtualThreadPerTaskExecutor(), if this JVM has it; this
+     * library is built for Java 7, hence the reflection
+     */
+    @Nullable
+    private static final Method VIRTUAL_THREADS = virtualThreadsFactory();
+
+    private PatchExecutors()
+    {
+    }
+
+    /**
+     * Create an executor with one platform thread per available processor
+     *
+     * @return a new executor
+     */
+    public static ExecutorService platformThreads()
+    {
+        return platformThreads(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Create an executor with a fixed number of platform threads
+     *
+     * @param threads the number of threads
+     * @return a new executor
+     * @throws IllegalArgumentException the number of threads is not strictly
+     * positive
+     */
+    public static ExecutorService platformThreads(final int threads)
+    {
+        BUNDLE.checkArgument(threads > 0, "jsonPatch.invalidThreadCount");
+        return Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Tell whether virtual threads are available on this JVM
+     *
+     * @return true if {@link #virtualThreads()} can be used
+     */
+    public static boolean hasVirtualThreads()
+    {
+        return VIRTUAL_THREADS != null;
+    }
+
+    /**
+     * Create an executor starting a virtual thread for each value
+     *
+     * @return a new executor
+     * @throws UnsupportedOperationException virtual threads are not available
+     * on this JVM
+     */
+    public static ExecutorService virtualThreads()
+    {
+        if (VIRTUAL_THREADS == null)
+            throw new UnsupportedOperationException(BUNDLE.getMessage(
+                "jsonPatch.noVirtualThreads"));
+        try {
+            return (ExecutorService) VIRTUAL_THREADS.invoke(null);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @Nullable
+    private static Method virtualThreadsFactory()
+    {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException ignored) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.fge.jackson.JacksonUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Encoding of a {@link JsonPatch} in a stream of bytes
+ *
+ * <p>Smile and CBOR are binary encodings of the JSON data model; patches
+ * written in these formats are usually smaller, and faster to read and write,
+ * than in text JSON.</p>
+ *
+ * @see JsonPatch#writeTo(OutputStream, PatchFormat)
+ * @see JsonPatch#readFrom(InputStream, PatchFormat)
+ * @since 1.13
+ */
+public enum PatchFormat
+{
+    /**
+     * Text JSON, encoded in UTF-8
+     */
+    JSON(new JsonFactory()),
+    /**
+     * <a href="https://github.com/FasterXML/smile-format-specification">Smile
+     * </a>
+     */
+    SMILE(new SmileFactory()),
+    /**
+     * <a href="https://tools.ietf.org/html/rfc7049">CBOR</a>
+     */
+    CBOR(new CBORFactory());
+
+    private final JsonFactory factory;
+
+    PatchFormat(final JsonFactory factory)
+    {
+        /*
+         * Streams belong to the caller, and are left open
+         */
+        factory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        factory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        /*
+         * Needed to write values as trees
+         */
+        factory.setCodec(JacksonUtils.newMapper());
+        this.factory = factory;
+    }
+
+    JsonGenerator createGenerator(final OutputStream out)
+        throws IOException
+    {
+        return factory.createGenerator(out);
+    }
+
+    JsonPatch read(final InputStream in)
+        throws IOException
+    {
+        final JsonParser parser = factory.createParser(in);
+
+        try {
+            return JsonPatch.fromParser(parser);
+        } finally {
+            parser.close();
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+
+/**
+ * How the operations of a {@link JsonPatch} are written
+ *
+ * <p>All profiles write {@code add}, {@code copy} and {@code move} operations
+ * the same way, as defined by RFC 6902; they differ in what they write for the
+ * other operations.</p>
+ *
+ * <p>Each profile writes operations with no other check than the type of the
+ * operation, and with precomputed member names; pointers are only encoded
+ * once per operation.</p>
+ *
+ * @see JsonPatch#writeTo(JsonGenerator, PatchOutputProfile)
+ * @since 1.13
+ */
+public enum PatchOutputProfile
+{
+    /**
+     * Write operations as defined by RFC 6902
+     *
+     * <p>{@code replace} and {@code test} operations are written with their
+     * {@code value}, and {@code remove} operations with only their path.</p>
+     */
+    STRICT
+    {
+        @Override
+        void writeReplace(final JsonGenerator jgen,
+            final PathValueOperation op)
+            throws IOException
+        {
+            start(jgen, REPLACE, op);
+            jgen.writeFieldName(VALUE);
+            jgen.writeTree(op.value);
+            jgen.writeEndObject();
+        }
+
+        @Override
+        void writeTest(final JsonGenerator jgen, final PathValueOperation op)
+            throws IOException
+        {
+            start(jgen, TEST, op);
+            jgen.writeFieldName(VALUE);
+            jgen.writeTree(op.value);
+            jgen.writeEndObject();
+        }
+
+        @Override
+        void writeRemove(final JsonGenerator jgen, final RemoveOperation op)
+            throws IOException
+        {
+            start(jgen, REMOVE, op);
+            jgen.writeEndObject();
+        }
+    },
+    /**
+     * Write operations along with the original values they affect
+     *
+     * <p>This is the format of generated diffs, and what Jackson writes when
+     * serializing a patch or an operation: {@code replace} operations are
+     * written with an {@code "updated"} placeholder as their {@code value},
+     * and with the value they were generated from as their {@code
+     * original_value}; {@code remove} operations are written with the context
+     * of the removal as their {@code original_value } (note the trailing
+     * space; see {@link ContextProjection}), if they have one. {@code test}
+     * operations are written with only their path.</p>
+     */
+    AUDIT
+    {
+        @Override
+        void writeReplace(final JsonGenerator jgen,
+            final PathValueOperation op)
+            throws IOException
+        {
+            start(jgen, REPLACE, op);
+            jgen.writeFieldName(VALUE);
+            jgen.writeString(UPDATED);
+            jgen.writeFieldName(ORIGINAL_VALUE);
+            jgen.writeTree(op.value);
+            jgen.writeEndObject();
+        }
+
+        @Override
+        void writeTest(final JsonGenerator jgen, final PathValueOperation op)
+            throws IOException
+        {
+            start(jgen, TEST, op);
+            jgen.writeEndObject();
+        }
+
+        @Override
+        void writeRemove(final JsonGenerator jgen, final RemoveOperation op)
+            throws IOException
+        {
+            start(jgen, REMOVE, op);
+            if (op.value != null) {
+                jgen.writeFieldName(REMOVAL_CONTEXT);
+                op.writeContext(jgen);
+            }
+            jgen.writeEndObject();
+        }
+    },
+    /**
+     * Write operations with no values other than added ones
+     *
+     * <p>{@code replace}, {@code remove} and {@code test} operations are
+     * written with only their path.</p>
+     */
+    COMPACT
+    {
+        @Override
+        void writeReplace(final JsonGenerator jgen,
+            final PathValueOperation op)
+            throws IOException
+        {
+            start(jgen, REPLACE, op);
+            jgen.writeEndObject();
+        }
+
+        @Override
+        void writeTest(final JsonGenerator jgen, final PathValueOperation op)
+            throws IOException
+        {
+            start(jgen, TEST, op);
+            jgen.writeEndObject();
+        }
+
+        @Override
+        void writeRemove(final JsonGenerator jgen, final RemoveOperation op)
+            throws IOException
+        {
+            start(jgen, REMOVE, op);
+            jgen.writeEndObject();
+        }
+    };
+
+    private static final SerializableString OP = new SerializedString("op");
+    private static final SerializableString PATH
+        = new SerializedString("path");
+    private static final SerializableString FROM
+        = new SerializedString("from");
+    private static final SerializableString VALUE
+        = new SerializedString("value");
+    private static final SerializableString ORIGINAL_VALUE
+        = new SerializedString("original_value");
+    private static final SerializableString REMOVAL_CONTEXT
+        = new SerializedString("original_value ");
+    private static final SerializableString UPDATED
+        = new SerializedString("updated");
+
+    private static final SerializableString ADD = new SerializedString("add");
+    private static final SerializableString REMOVE
+        = new SerializedString("remove");
+    private static final SerializableString REPLACE
+        = new SerializedString("replace");
+    private static final SerializableString TEST
+        = new SerializedString("test");
+
+    final void writeAdd(final JsonGenerator jgen, final PathValueOperation op)
+        throws IOException
+    {
+        start(jgen, ADD, op);
+        jgen.writeFieldName(VALUE);
+        jgen.writeTree(op.value);
+        jgen.writeEndObject();
+    }
+
+    final void writeDualPath(final JsonGenerator jgen,
+        final DualPathOperation op)
+        throws IOException
+    {
+        jgen.writeStartObject();
+        jgen.writeFieldName(OP);
+        jgen.writeString(op.op);
+        jgen.writeFieldName(PATH);
+        jgen.writeString(op.encodedPath());
+        jgen.writeFieldName(FROM);
+        jgen.writeString(op.encodedFrom());
+        jgen.writeEndObject();
+    }
+
+    /*
+     * For operations with a value which this class does not know about
+     */
+    final void writePathOnly(final JsonGenerator jgen,
+        final PathValueOperation op)
+        throws IOException
+    {
+        jgen.writeStartObject();
+        jgen.writeFieldName(OP);
+        jgen.writeString(op.op);
+        jgen.writeFieldName(PATH);
+        jgen.writeString(op.encodedPath());
+        jgen.writeEndObject();
+    }
+
+    abstract void writeReplace(final JsonGenerator jgen,
+        final PathValueOperation op)
+        throws IOException;
+
+    abstract void writeTest(final JsonGenerator jgen,
+        final PathValueOperation op)
+        throws IOException;
+
+    abstract void writeRemove(final JsonGenerator jgen,
+        final RemoveOperation op)
+        throws IOException;
+
+    private static void start(final JsonGenerator jgen,
+        final SerializableString name, final JsonPatchOperation op)
+        throws IOException
+    {
+        jgen.writeStartObject();
+        jgen.writeFieldName(OP);
+        jgen.writeString(name);
+        jgen.writeFieldName(PATH);
+        jgen.writeString(op.encodedPath());
+    }
+}
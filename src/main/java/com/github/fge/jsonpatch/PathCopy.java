@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ContainerNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * Copy of the containers leading to a JSON Pointer
+ *
+ * <p>This is what allows to apply a patch without modifying any of the
+ * versions of a value: before an operation modifies a container, this
+ * container and all of its ancestors are copied, and the operation is applied
+ * to the copies. All other values are shared with the previous version.</p>
+ *
+ * <p>Copies are shallow: the cost of copying a container is that of copying
+ * references to its members or elements, not that of copying the values
+ * themselves.</p>
+ */
+final class PathCopy
+{
+    private PathCopy()
+    {
+    }
+
+    /**
+     * Copy the root value and the containers leading to the parent of a
+     * pointer
+     *
+     * <p>Copying stops at the first reference token which cannot be resolved;
+     * the operation which then uses the pointer is expected to fail.</p>
+     *
+     * @param root the root value
+     * @param pointer the pointer
+     * @return the new root value
+     */
+    static JsonNode copyParents(final JsonNode root,
+        final CompiledPointer pointer)
+    {
+        if (!root.isContainerNode())
+            return root;
+
+        final JsonNode ret = shallowCopy(root);
+
+        JsonNode parent = ret;
+        JsonNode child;
+
+        for (int index = 0; index < pointer.size() - 1; index++) {
+            child = pointer.child(parent, index);
+            if (child == null || !child.isContainerNode())
+                break;
+            child = shallowCopy(child);
+            if (parent.isObject())
+                ((ObjectNode) parent).set(pointer.token(index), child);
+            else
+                ((ArrayNode) parent).set(pointer.index(index), child);
+            parent = child;
+        }
+
+        return ret;
+    }
+
+    private static JsonNode shallowCopy(final JsonNode node)
+    {
+        final ContainerNode<?> container = (ContainerNode<?>) node;
+
+        if (node.isObject())
+            return container.objectNode().setAll((ObjectNode) node);
+
+        return container.arrayNode(node.size()).addAll((ArrayNode) node);
+    }
+}
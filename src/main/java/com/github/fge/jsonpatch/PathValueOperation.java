@@ -23,7 +23,6 @@ import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.SerializerProvider;
-import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
 
@@ -31,15 +30,16 @@ import java.io.IOException;
 
 /**
  * Base class for patch operations taking a value in addition to a path
+ *
+ * <p>The value is not copied: the operation takes ownership of it, and it
+ * must not be modified once the operation is built. Likewise, the value
+ * returned by {@link #getValue()} must not be modified. Applying the operation
+ * only modifies a copy of this value, unless it is applied with {@link
+ * ApplyMode#SHARE}.</p>
  */
 public abstract class PathValueOperation
     extends JsonPatchOperation
 {
-    @JsonSerialize
-    protected final JsonNode oldvalue1;
-
-
-
     /**
      * Protected constructor
      *
@@ -51,8 +51,6 @@ public abstract class PathValueOperation
         final JsonNode value )
     {
         super(op, path,value);
-        this.oldvalue1 = value.deepCopy();
-
     }
 
     @Override
@@ -60,27 +58,14 @@ public abstract class PathValueOperation
         final SerializerProvider provider)
         throws IOException, JsonProcessingException
     {
-        jgen.writeStartObject();
-        jgen.writeStringField("op", op);
-        jgen.writeStringField("path", path.toString());
-
-        if (op.contentEquals("replace"))
-        {
-            jgen.writeStringField("value","updated");
-            jgen.writeFieldName("original_value");
-            jgen.writeTree(value);
-        }
-
-        if (op.contentEquals("add"))
-        {
-
-            jgen.writeFieldName("value");
-            jgen.writeTree(value);
-
-        }
-
+        writeTo(jgen, PatchOutputProfile.AUDIT);
+    }
 
-        jgen.writeEndObject();
+    @Override
+    void writeTo(final JsonGenerator jgen, final PatchOutputProfile profile)
+        throws IOException
+    {
+        profile.writePathOnly(jgen, this);
     }
 
     @Override
@@ -91,8 +76,13 @@ public abstract class PathValueOperation
         serialize(jgen, provider);
     }
 
+    /**
+     * Get the value of this operation
+     *
+     * @return the value, which must not be modified
+     */
     public final JsonNode getValue() {
-        return value.deepCopy();
+        return value;
     }
 
     @Override
@@ -24,7 +24,6 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializerProvider;
 import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
 import com.fasterxml.jackson.databind.node.ArrayNode;
@@ -32,6 +31,8 @@ import com.fasterxml.jackson.databind.node.MissingNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
 
+import javax.annotation.Nullable;
+
 import java.io.IOException;
 
 /**
@@ -39,16 +40,43 @@ import java.io.IOException;
  *
  * <p>This operation only takes one pointer ({@code path}) as an argument. It
  * is an error condition if no JSON value exists at that pointer.</p>
+ *
+ * <p>When serialized, the operation also writes the context of the removal
+ * (see {@link ContextProjection}).</p>
  */
 public final class RemoveOperation
     extends JsonPatchOperation
+    implements InPlaceOperation
 {
+    /*
+     * null if the value is the array of already projected values
+     */
+    @Nullable
+    private final ContextProjection projection;
+
     @JsonCreator
     public RemoveOperation(@JsonProperty("path") final JsonPointer path,
                            @JsonProperty("value") final JsonNode value )
     {
         super("remove", path, value);
+        projection = null;
+    }
 
+    /**
+     * Constructor
+     *
+     * @param path the JSON Pointer for this operation
+     * @param context the value the projection is applied to
+     * @param projection the fields of the context to serialize
+     *
+     * @since 1.13
+     */
+    public RemoveOperation(final JsonPointer path, final JsonNode context,
+        final ContextProjection projection)
+    {
+        super("remove", path, context);
+        BUNDLE.checkNotNull(projection, "common.nullArgument");
+        this.projection = projection;
     }
 
     @Override
@@ -57,35 +85,107 @@ public final class RemoveOperation
     {
         if (path.isEmpty())
             return MissingNode.getInstance();
-        if (path.path(node).isMissingNode())
+        final CompiledPointer pointer = compiledPath();
+        checkParent(pointer, node);
+        final JsonNode ret = node.deepCopy();
+        remove(pointer, pointer.getParent(ret), UndoLog.discarding());
+        return ret;
+    }
+
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    @Override
+    public JsonNode applyInPlace(final JsonNode node, final UndoLog log)
+        throws JsonPatchException
+    {
+        if (path.isEmpty())
+            return MissingNode.getInstance();
+        final CompiledPointer pointer = compiledPath();
+        remove(pointer, checkParent(pointer, node), log);
+        return node;
+    }
+
+    @Override
+    public JsonNode applySharing(final JsonNode node)
+        throws JsonPatchException
+    {
+        if (path.isEmpty())
+            return MissingNode.getInstance();
+        final CompiledPointer pointer = compiledPath();
+        checkParent(pointer, node);
+        final JsonNode ret = PathCopy.copyParents(node, pointer);
+        remove(pointer, pointer.getParent(ret), UndoLog.discarding());
+        return ret;
+    }
+
+    /*
+     * Check that a value exists at the given path, and return it
+     */
+    static JsonNode checkPath(final CompiledPointer path, final JsonNode node)
+        throws JsonPatchException
+    {
+        final JsonNode ret = path.get(node);
+        if (ret == null || ret.isMissingNode())
             throw new JsonPatchException(BUNDLE.getMessage(
                 "jsonPatch.noSuchPath"));
-        final JsonNode ret = node.deepCopy();
-        final JsonNode parentNode = path.parent().get(ret);
-        final String raw = Iterables.getLast(path).getToken().getRaw();
-        if (parentNode.isObject())
-            ((ObjectNode) parentNode).remove(raw);
-        else
-            ((ArrayNode) parentNode).remove(Integer.parseInt(raw));
         return ret;
     }
 
+    /*
+     * Check that a value exists at the given path, which must not be empty,
+     * and return its parent
+     */
+    static JsonNode checkParent(final CompiledPointer path,
+        final JsonNode node)
+        throws JsonPatchException
+    {
+        final JsonNode ret = path.getParent(node);
+        if (path.getChild(ret) == null)
+            throw new JsonPatchException(BUNDLE.getMessage(
+                "jsonPatch.noSuchPath"));
+        return ret;
+    }
+
+    /*
+     * Remove a value from its parent, in place, and return it; the parent must
+     * have been returned by checkParent(), or be a copy of it.
+     */
+    static JsonNode remove(final CompiledPointer path,
+        final JsonNode parentNode, final UndoLog log)
+    {
+        return parentNode.isObject()
+            ? log.remove((ObjectNode) parentNode, path.lastToken())
+            : log.remove((ArrayNode) parentNode, path.lastIndex());
+    }
+
     @Override
     public void serialize(final JsonGenerator jgen, final SerializerProvider provider)
         throws IOException, JsonProcessingException
     {
-        jgen.writeStartObject();
-        jgen.writeStringField("op", "remove");
-        /*String path2 = String.valueOf(path.toString().contains("0"));
-        String path = path2.replace(path2,"/Entitlements/?");*/
-        jgen.writeStringField("path", path.toString());
-        jgen.writeFieldName("original_value ");
-        ObjectNode rootNode = new ObjectMapper().createObjectNode();
-        rootNode.put("Application Key", value.get(0).asText());
-        rootNode.put("Entitlement Type", value.get(1).asText());
-        rootNode.put("Entitlement Name", value.get(2).asText());
-        jgen.writeTree(rootNode);
-        jgen.writeEndObject();
+        writeTo(jgen, PatchOutputProfile.AUDIT);
+    }
+
+    @Override
+    void writeTo(final JsonGenerator jgen, final PatchOutputProfile profile)
+        throws IOException
+    {
+        profile.writeRemove(jgen, this);
+    }
+
+    /*
+     * Write the context of the removal (see ContextProjection)
+     */
+    void writeContext(final JsonGenerator jgen)
+        throws IOException
+    {
+        if (projection != null)
+            projection.writeTo(jgen, value);
+        else
+            ContextProjection.ENTITLEMENT.writeProjected(jgen, value);
     }
 
     @Override
@@ -21,11 +21,14 @@ package com.github.fge.jsonpatch;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
 
+import java.io.IOException;
+
 /**
  * JSON Patch {@code replace} operation
  *
@@ -37,6 +40,7 @@ import com.github.fge.jackson.jsonpointer.JsonPointer;
  */
 public final class ReplaceOperation
     extends PathValueOperation
+    implements InPlaceOperation
 {
     @JsonCreator
     public ReplaceOperation(@JsonProperty("path") final JsonPointer path,
@@ -45,6 +49,13 @@ public final class ReplaceOperation
         super("replace", path, value);
     }
 
+    @Override
+    void writeTo(final JsonGenerator jgen, final PatchOutputProfile profile)
+        throws IOException
+    {
+        profile.writeReplace(jgen, this);
+    }
+
     @Override
     public JsonNode apply(final JsonNode node)
         throws JsonPatchException
@@ -62,19 +73,59 @@ public final class ReplaceOperation
          * If remove is done first, the array is empty and add rightly complains
          * that there is no such index in the array.
          */
-        if (path.path(node).isMissingNode())
-            throw new JsonPatchException(BUNDLE.getMessage(
-                "jsonPatch.noSuchPath"));
-        final JsonNode replacement = value.deepCopy();
-        if (path.isEmpty())
-            return replacement;
+        final CompiledPointer pointer = compiledPath();
+        if (path.isEmpty()) {
+            RemoveOperation.checkPath(pointer, node);
+            return value.deepCopy();
+        }
+        RemoveOperation.checkParent(pointer, node);
         final JsonNode ret = node.deepCopy();
-        final JsonNode parent = path.parent().get(ret);
-        final String rawToken = Iterables.getLast(path).getToken().getRaw();
+        replace(pointer, value.deepCopy(), pointer.getParent(ret),
+            UndoLog.discarding());
+        return ret;
+    }
+
+    @Override
+    public boolean isReadOnly()
+    {
+        return false;
+    }
+
+    @Override
+    public JsonNode applyInPlace(final JsonNode node, final UndoLog log)
+        throws JsonPatchException
+    {
+        final CompiledPointer pointer = compiledPath();
+        if (path.isEmpty()) {
+            RemoveOperation.checkPath(pointer, node);
+            return value.deepCopy();
+        }
+        replace(pointer, value.deepCopy(),
+            RemoveOperation.checkParent(pointer, node), log);
+        return node;
+    }
+
+    @Override
+    public JsonNode applySharing(final JsonNode node)
+        throws JsonPatchException
+    {
+        final CompiledPointer pointer = compiledPath();
+        if (path.isEmpty()) {
+            RemoveOperation.checkPath(pointer, node);
+            return value;
+        }
+        RemoveOperation.checkParent(pointer, node);
+        final JsonNode ret = PathCopy.copyParents(node, pointer);
+        replace(pointer, value, pointer.getParent(ret), UndoLog.discarding());
+        return ret;
+    }
+
+    private static void replace(final CompiledPointer path,
+        final JsonNode replacement, final JsonNode parent, final UndoLog log)
+    {
         if (parent.isObject())
-            ((ObjectNode) parent).replace(rawToken, replacement);
+            log.set((ObjectNode) parent, path.lastToken(), replacement);
         else
-            ((ArrayNode) parent).set(Integer.parseInt(rawToken), replacement);
-        return ret;
+            log.set((ArrayNode) parent, path.lastIndex(), replacement);
     }
 }
@@ -21,10 +21,13 @@ package com.github.fge.jsonpatch;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.github.fge.jackson.JsonNumEquals;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
 
+import java.io.IOException;
+
 /**
  * JSON Patch {@code test} operation
  *
@@ -37,9 +40,13 @@ import com.github.fge.jackson.jsonpointer.JsonPointer;
  * <p>Also note that equality as defined by JSON Patch is exactly the same as it
  * is defined by JSON Schema itself. As such, this operation reuses {@link
  * JsonNumEquals} for testing equality.</p>
+ *
+ * <p>Since this operation only reads the value it is applied to, {@link
+ * #apply(JsonNode)} returns this value as is instead of a copy.</p>
  */
 public final class TestOperation
     extends PathValueOperation
+    implements InPlaceOperation
 {
     private static final JsonNumEquals EQUIVALENCE
         = JsonNumEquals.getInstance();
@@ -51,17 +58,49 @@ public final class TestOperation
         super("test", path, value);
     }
 
+    @Override
+    void writeTo(final JsonGenerator jgen, final PatchOutputProfile profile)
+        throws IOException
+    {
+        profile.writeTest(jgen, this);
+    }
+
+    @Override
+    public boolean isReadOnly()
+    {
+        return true;
+    }
+
     @Override
     public JsonNode apply(final JsonNode node)
         throws JsonPatchException
     {
-        final JsonNode tested = path.path(node);
-        if (tested.isMissingNode())
-            throw new JsonPatchException(BUNDLE.getMessage(
-                "jsonPatch.noSuchPath"));
+        test(node);
+        return node;
+    }
+
+    @Override
+    public JsonNode applyInPlace(final JsonNode node, final UndoLog log)
+        throws JsonPatchException
+    {
+        test(node);
+        return node;
+    }
+
+    @Override
+    public JsonNode applySharing(final JsonNode node)
+        throws JsonPatchException
+    {
+        test(node);
+        return node;
+    }
+
+    private void test(final JsonNode node)
+        throws JsonPatchException
+    {
+        final JsonNode tested = RemoveOperation.checkPath(compiledPath(), node);
         if (!EQUIVALENCE.equivalent(tested, value))
             throw new JsonPatchException(BUNDLE.getMessage(
                 "jsonPatch.valueTestFailure"));
-        return node.deepCopy();
     }
 }
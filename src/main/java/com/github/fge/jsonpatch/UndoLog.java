@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Modifications of JSON values, which can be reverted
+ *
+ * <p>Operations applied in place go through this class for all the changes
+ * they make to the value they are applied to; if the patch fails, {@link
+ * #revert()} then undoes these changes, in reverse order.</p>
+ *
+ * <p>Undo information is only kept if the value belongs to the caller: when
+ * working on a private copy, the copy is simply dropped on failure (see
+ * {@link #discarding()}).</p>
+ */
+final class UndoLog
+{
+    private static final UndoLog DISCARDING = new UndoLog(false);
+
+    /*
+     * null if no undo information is kept
+     */
+    private final List<Undo> entries;
+
+    private UndoLog(final boolean keep)
+    {
+        entries = keep ? new ArrayList<Undo>() : null;
+    }
+
+    static UndoLog recording()
+    {
+        return new UndoLog(true);
+    }
+
+    static UndoLog discarding()
+    {
+        return DISCARDING;
+    }
+
+    /**
+     * Set an object member, and return its previous value, if any
+     */
+    JsonNode set(final ObjectNode object, final String name,
+        final JsonNode value)
+    {
+        final JsonNode ret = object.replace(name, value);
+
+        if (entries != null)
+            entries.add(new Undo()
+            {
+                @Override
+                public void undo()
+                {
+                    if (ret == null)
+                        object.remove(name);
+                    else
+                        object.replace(name, ret);
+                }
+            });
+        return ret;
+    }
+
+    /**
+     * Remove an object member, and return its value
+     */
+    JsonNode remove(final ObjectNode object, final String name)
+    {
+        if (entries == null)
+            return object.remove(name);
+
+        /*
+         * Members following the removed member are needed to restore it at
+         * the same place
+         */
+        final Map<String, JsonNode> following
+            = new LinkedHashMap<String, JsonNode>();
+        final Iterator<Map.Entry<String, JsonNode>> iterator = object.fields();
+
+        while (iterator.hasNext())
+            if (iterator.next().getKey().equals(name))
+                break;
+        while (iterator.hasNext()) {
+            final Map.Entry<String, JsonNode> entry = iterator.next();
+            following.put(entry.getKey(), entry.getValue());
+        }
+
+        final JsonNode ret = object.remove(name);
+
+        entries.add(new Undo()
+        {
+            @Override
+            public void undo()
+            {
+                object.remove(following.keySet());
+                object.set(name, ret);
+                object.setAll(following);
+            }
+        });
+        return ret;
+    }
+
+    /**
+     * Insert an array element
+     */
+    void insert(final ArrayNode array, final int index, final JsonNode value)
+    {
+        array.insert(index, value);
+
+        if (entries != null)
+            entries.add(new Undo()
+            {
+                @Override
+                public void undo()
+                {
+                    array.remove(index);
+                }
+            });
+    }
+
+    /**
+     * Replace an array element, and return its previous value
+     */
+    JsonNode set(final ArrayNode array, final int index, final JsonNode value)
+    {
+        final JsonNode ret = array.set(index, value);
+
+        if (entries != null)
+            entries.add(new Undo()
+            {
+                @Override
+                public void undo()
+                {
+                    array.set(index, ret);
+                }
+            });
+        return ret;
+    }
+
+    /**
+     * Remove an array element, and return it
+     */
+    JsonNode remove(final ArrayNode array, final int index)
+    {
+        final JsonNode ret = array.remove(index);
+
+        if (entries != null)
+            entries.add(new Undo()
+            {
+                @Override
+                public void undo()
+                {
+                    array.insert(index, ret);
+                }
+            });
+        return ret;
+    }
+
+    /**
+     * Undo all modifications, last one first
+     */
+    void revert()
+    {
+        if (entries == null)
+            return;
+        for (int index = entries.size() - 1; index >= 0; index--)
+            entries.get(index).undo();
+        entries.clear();
+    }
+
+    private interface Undo
+    {
+        void undo();
+    }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonNumEquals;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Alignment of the elements of two arrays
+ *
+ * <p>The result of an alignment is an array with one entry per element of the
+ * source array, giving the index of the element of the target array it is
+ * paired with, or {@code -1} if the source element has been removed. Target
+ * elements which no source element is paired with have been added.</p>
+ *
+ * <p>If identity attributes are configured for the array pointer, elements are
+ * paired by the values of these attributes (using a hash join); this is the
+ * case for instance of entitlements, identified by their {@code Application
+ * Key}, {@code Entitlement Type} and {@code Entitlement Name}. Elements which
+ * are not objects, or lack one of the attributes, are paired in order with one
+ * another.</p>
+ *
+ * <p>Otherwise, equal elements are paired using Myers' diff algorithm (linear
+ * space variant); elements left between two such pairs are then paired by
+ * position, so that modified elements are diffed rather than removed and
+ * added again.</p>
+ */
+final class ArrayMatcher
+{
+    private static final JsonNumEquals EQUIVALENCE
+        = JsonNumEquals.getInstance();
+
+    private static final ArrayMatcher NO_IDENTITIES
+        = new ArrayMatcher(Collections.<JsonPointer, Set<String>>emptyMap());
+
+    private final Map<JsonPointer, Set<String>> identities;
+
+    private ArrayMatcher(final Map<JsonPointer, Set<String>> identities)
+    {
+        this.identities = identities;
+    }
+
+    static ArrayMatcher of(final Map<JsonPointer, Set<String>> identities)
+    {
+        return identities.isEmpty() ? NO_IDENTITIES
+            : new ArrayMatcher(
+                new HashMap<JsonPointer, Set<String>>(identities));
+    }
+
+    static ArrayMatcher byValue()
+    {
+        return NO_IDENTITIES;
+    }
+
+    int[] align(final JsonPointer pointer, final JsonNode source,
+        final JsonNode target)
+    {
+        return align(pointer, source, target, StructuralHash.COMPUTED);
+    }
+
+    int[] align(final JsonPointer pointer, final JsonNode source,
+        final JsonNode target, final StructuralHash.Hashes hashes)
+    {
+        final Set<String> attributes = identities.get(pointer);
+        return attributes == null || attributes.isEmpty()
+            ? alignByValue(source, target, hashes)
+            : alignByIdentity(attributes, source, target);
+    }
+
+    /*
+     * Returns a key such that two elements of the array at this pointer with
+     * equal keys are always paired by align(), provided no other element with
+     * the same key comes before them. Elements are keyed by their identity
+     * attributes if there are some, and by their value otherwise.
+     */
+    Object keyOf(final JsonPointer pointer, final JsonNode element)
+    {
+        final Set<String> attributes = identities.get(pointer);
+        final List<JsonNode> identity = attributes == null
+            || attributes.isEmpty() ? null : identityOf(attributes, element);
+
+        return identity != null ? identity : new ValueKey(element);
+    }
+
+    private static int[] alignByIdentity(final Set<String> attributes,
+        final JsonNode source, final JsonNode target)
+    {
+        final int[] ret = unpaired(source.size());
+        final Map<List<JsonNode>, Deque<Integer>> candidates
+            = new HashMap<List<JsonNode>, Deque<Integer>>();
+        final Deque<Integer> anonymous = new ArrayDeque<Integer>();
+
+        List<JsonNode> key;
+        Deque<Integer> queue;
+
+        for (int index = 0; index < target.size(); index++) {
+            key = identityOf(attributes, target.get(index));
+            if (key == null) {
+                anonymous.add(index);
+                continue;
+            }
+            queue = candidates.get(key);
+            if (queue == null) {
+                queue = new ArrayDeque<Integer>();
+                candidates.put(key, queue);
+            }
+            queue.add(index);
+        }
+
+        for (int index = 0; index < source.size(); index++) {
+            key = identityOf(attributes, source.get(index));
+            queue = key == null ? anonymous : candidates.get(key);
+            if (queue != null && !queue.isEmpty())
+                ret[index] = queue.remove();
+        }
+
+        return ret;
+    }
+
+    private static List<JsonNode> identityOf(final Set<String> attributes,
+        final JsonNode element)
+    {
+        if (!element.isObject())
+            return null;
+
+        final List<JsonNode> ret = new ArrayList<JsonNode>(attributes.size());
+
+        JsonNode value;
+
+        for (final String attribute: attributes) {
+            value = element.get(attribute);
+            if (value == null)
+                return null;
+            ret.add(value);
+        }
+        return ret;
+    }
+
+    private static int[] alignByValue(final JsonNode source,
+        final JsonNode target, final StructuralHash.Hashes hashes)
+    {
+        final int[] ret = unpaired(source.size());
+
+        /*
+         * Give equivalent elements the same identifier, so that the diff
+         * algorithm itself only ever compares integers.
+         */
+        final int[] first = new int[source.size()];
+        final int[] second = new int[target.size()];
+        final Map<Integer, List<Integer>> classes
+            = new HashMap<Integer, List<Integer>>();
+        final List<JsonNode> representatives = new ArrayList<JsonNode>();
+
+        for (int index = 0; index < first.length; index++)
+            first[index] = classOf(classes, representatives,
+                source.get(index), hashes);
+        for (int index = 0; index < second.length; index++)
+            second[index] = classOf(classes, representatives,
+                target.get(index), hashes);
+
+        new Myers(first, second, ret).diff(0, first.length, 0,
+            second.length);
+
+        /*
+         * Pair the remaining elements by position between two pairs of equal
+         * elements.
+         */
+        int sourceIndex = 0;
+        int targetIndex = 0;
+        int nextSource, nextTarget;
+
+        while (sourceIndex < first.length) {
+            nextSource = sourceIndex;
+            while (nextSource < first.length && ret[nextSource] == -1)
+                nextSource++;
+            nextTarget = nextSource == first.length ? second.length
+                : ret[nextSource];
+            while (sourceIndex < nextSource && targetIndex < nextTarget)
+                ret[sourceIndex++] = targetIndex++;
+            sourceIndex = nextSource + 1;
+            targetIndex = nextTarget + 1;
+        }
+
+        return ret;
+    }
+
+    private static int classOf(final Map<Integer, List<Integer>> classes,
+        final List<JsonNode> representatives, final JsonNode element,
+        final StructuralHash.Hashes hashes)
+    {
+        final int hash = hashes.hash(element);
+        List<Integer> bucket = classes.get(hash);
+
+        if (bucket == null) {
+            bucket = new ArrayList<Integer>(1);
+            classes.put(hash, bucket);
+        }
+
+        for (final int candidate: bucket)
+            if (EQUIVALENCE.equivalent(representatives.get(candidate), element))
+                return candidate;
+
+        final int ret = representatives.size();
+        representatives.add(element);
+        bucket.add(ret);
+        return ret;
+    }
+
+    private static int[] unpaired(final int size)
+    {
+        final int[] ret = new int[size];
+        Arrays.fill(ret, -1);
+        return ret;
+    }
+
+    private static final class ValueKey
+    {
+        private final JsonNode value;
+        private final int hash;
+
+        private ValueKey(final JsonNode value)
+        {
+            this.value = value;
+            hash = StructuralHash.hash(value);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(final Object obj)
+        {
+            if (!(obj instanceof ValueKey))
+                return false;
+            final ValueKey other = (ValueKey) obj;
+            return hash == other.hash
+                && EQUIVALENCE.equivalent(value, other.value);
+        }
+    }
+
+    /*
+     * Linear space variant of the algorithm described in "An O(ND) Difference
+     * Algorithm and Its Variations" (Eugene W. Myers, 1986). Only the pairs of
+     * equal elements are recorded.
+     */
+    private static final class Myers
+    {
+        private final int[] first;
+        private final int[] second;
+        private final int[] pairs;
+
+        private Myers(final int[] first, final int[] second, final int[] pairs)
+        {
+            this.first = first;
+            this.second = second;
+            this.pairs = pairs;
+        }
+
+        private void diff(int firstStart, int firstEnd, int secondStart,
+            int secondEnd)
+        {
+            while (firstStart < firstEnd && secondStart < secondEnd
+                && first[firstStart] == second[secondStart])
+                pairs[firstStart++] = secondStart++;
+
+            while (firstStart < firstEnd && secondStart < secondEnd
+                && first[firstEnd - 1] == second[secondEnd - 1])
+                pairs[--firstEnd] = --secondEnd;
+
+            /*
+             * Both ranges now start and end with different elements, which
+             * means the edit distance is at least 2 and the recursion below
+             * always terminates.
+             */
+            if (firstStart == firstEnd || secondStart == secondEnd)
+                return;
+
+            final int[] snake = middleSnake(firstStart, firstEnd, secondStart,
+                secondEnd);
+
+            diff(firstStart, snake[0], secondStart, snake[1]);
+            for (int x = snake[0], y = snake[1]; x < snake[2]; x++, y++)
+                pairs[x] = y;
+            diff(snake[2], firstEnd, snake[3], secondEnd);
+        }
+
+        /*
+         * Returns the start and end coordinates of the middle snake, as {x, y,
+         * u, v}
+         */
+        private int[] middleSnake(final int firstStart, final int firstEnd,
+            final int secondStart, final int secondEnd)
+        {
+            final int n = firstEnd - firstStart;
+            final int m = secondEnd - secondStart;
+            final int delta = n - m;
+            final boolean odd = (delta & 1) != 0;
+            final int max = (n + m + 1) / 2;
+            final int offset = max + 1;
+            final int[] forward = new int[2 * max + 3];
+            final int[] backward = new int[2 * max + 3];
+
+            int x, y, startX, startY;
+
+            for (int d = 0; d <= max; d++) {
+                for (int k = -d; k <= d; k += 2) {
+                    x = k == -d || k != d
+                        && forward[offset + k - 1] < forward[offset + k + 1]
+                        ? forward[offset + k + 1]
+                        : forward[offset + k - 1] + 1;
+                    y = x - k;
+                    startX = x;
+                    startY = y;
+                    while (x < n && y < m && first[firstStart + x]
+                        == second[secondStart + y]) {
+                        x++;
+                        y++;
+                    }
+                    forward[offset + k] = x;
+                    if (odd && k >= delta - (d - 1) && k <= delta + (d - 1)
+                        && x + backward[offset + delta - k] >= n)
+                        return new int[] {
+                            firstStart + startX, secondStart + startY,
+                            firstStart + x, secondStart + y
+                        };
+                }
+                for (int k = -d; k <= d; k += 2) {
+                    x = k == -d || k != d
+                        && backward[offset + k - 1] < backward[offset + k + 1]
+                        ? backward[offset + k + 1]
+                        : backward[offset + k - 1] + 1;
+                    y = x - k;
+                    startX = x;
+                    startY = y;
+                    while (x < n && y < m && first[firstEnd - x - 1]
+                        == second[secondEnd - y - 1]) {
+                        x++;
+                        y++;
+                    }
+                    backward[offset + k] = x;
+                    if (!odd && delta - k >= -d && delta - k <= d
+                        && x + forward[offset + delta - k] >= n)
+                        return new int[] {
+                            firstEnd - x, secondEnd - y,
+                            firstEnd - startX, secondEnd - startY
+                        };
+                }
+            }
+            throw new IllegalStateException("unreachable");
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
 import com.github.fge.jsonpatch.AddOperation;
+import com.github.fge.jsonpatch.ContextProjection;
 import com.github.fge.jsonpatch.CopyOperation;
 import com.github.fge.jsonpatch.JsonPatchOperation;
 import com.github.fge.jsonpatch.MoveOperation;
@@ -42,6 +43,8 @@ final class DiffOperation
     private final JsonPointer path;
     /* An op's "value", if any */
     private final JsonNode value;
+    /* Fields of the value written by a remove op */
+    private final ContextProjection projection;
 
     static DiffOperation add(final JsonPointer path, final JsonNode newvalue, final JsonNode source)
     {
@@ -65,9 +68,11 @@ final class DiffOperation
         return new DiffOperation(Type.MOVE, from, oldValue, path, value);
     }
 
-    static DiffOperation remove(final JsonPointer from, final JsonNode oldValue , final JsonNode newValue)
+    static DiffOperation remove(final JsonPointer from, final JsonNode oldValue,
+        final JsonNode context, final ContextProjection projection)
     {
-        return new DiffOperation(Type.REMOVE, from, oldValue, null,newValue);
+        return new DiffOperation(Type.REMOVE, from, oldValue, null, context,
+            projection);
     }
 
     static DiffOperation replace(final JsonPointer from, final JsonNode oldValue, final JsonNode value, final JsonNode source2)
@@ -78,12 +83,20 @@ final class DiffOperation
     private DiffOperation(final Type type, final JsonPointer from,
         final JsonNode oldValue, final JsonPointer path,
         final JsonNode value)
+    {
+        this(type, from, oldValue, path, value, null);
+    }
+
+    private DiffOperation(final Type type, final JsonPointer from,
+        final JsonNode oldValue, final JsonPointer path,
+        final JsonNode value, final ContextProjection projection)
     {
         this.type = type;
         this.from = from;
         this.oldValue = oldValue;
         this.path = path;
         this.value = value;
+        this.projection = projection;
     }
 
     Type getType()
@@ -146,7 +159,7 @@ final class DiffOperation
             @Override
             JsonPatchOperation toOperation(final DiffOperation op)
             {
-                return new RemoveOperation(op.from,op.value);
+                return new RemoveOperation(op.from, op.value, op.projection);
             }
         },
         REPLACE
@@ -19,36 +19,178 @@
 
 package com.github.fge.jsonpatch.diff;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.github.fge.jackson.JsonNumEquals;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonpatch.ContextProjection;
 import com.github.fge.jsonpatch.Iterables;
 import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchOperation;
-import jdk.internal.org.jline.utils.DiffHelper;
 
 import javax.annotation.Nullable;
 import java.util.*;
 
 // TODO: cleanup
-final class DiffProcessor
+class DiffProcessor
 {
     private static final JsonNumEquals EQUIVALENCE
         = JsonNumEquals.getInstance();
 
-    private final Map<JsonPointer, JsonNode> unchanged;
+    /*
+     * Unchanged values, indexed by their structural hash. Values are
+     * registered by JsonDiff while it walks both trees, in two steps: they
+     * are first pushed to the pending list below, and only indexed once it is
+     * known that their parent container differs (see keepUnchanged() and
+     * discardUnchanged()).
+     */
+    private final Map<Integer, List<UnchangedValue>> unchanged
+        = new HashMap<Integer, List<UnchangedValue>>();
 
+    private final List<UnchangedValue> pending
+        = new ArrayList<UnchangedValue>();
+
+    /*
+     * Consumed removals (ie, which have been turned into moves) are replaced
+     * with null in this list, so that the indices stored in the removal index
+     * below remain valid.
+     */
     private final List<DiffOperation> diffs = new ArrayList<>();
 
+    /*
+     * Indices in the list above of removal operations not yet turned into
+     * moves, indexed by the structural hash of the removed value
+     */
+    private final Map<Integer, List<Integer>> removed
+        = new HashMap<Integer, List<Integer>>();
+
+    /*
+     * Indices in the list above of additions, with the structural hash of the
+     * added value. Whether they can be turned into copies is only known once
+     * all unchanged values have been registered, that is, in getPatch().
+     */
+    private final Map<Integer, Integer> additions
+        = new LinkedHashMap<Integer, Integer>();
+
+    /*
+     * null if the diff is sequential
+     */
+    @Nullable
+    private final ParallelDiff parallel;
+
+    private final ContextProjection projection;
+
+    /*
+     * Where hashes of values come from; reset with the processor
+     */
+    private StructuralHash.Hashes hashes = StructuralHash.COMPUTED;
+
+    DiffProcessor()
+    {
+        this(null, ContextProjection.ENTITLEMENT);
+    }
+
+    DiffProcessor(@Nullable final ParallelDiff parallel,
+        final ContextProjection projection)
+    {
+        this.parallel = parallel;
+        this.projection = projection;
+    }
+
+    @Nullable
+    final ParallelDiff getParallel()
+    {
+        return parallel;
+    }
+
+    final StructuralHash.Hashes getHashes()
+    {
+        return hashes;
+    }
+
+    final void setHashes(final StructuralHash.Hashes hashes)
+    {
+        this.hashes = hashes;
+    }
+
+    /*
+     * Diff all pairs of values of a container, and return the result of each
+     * diff; for the processor, this is the same as diffing pairs in order.
+     */
+    final long[] diffPairs(final Pairs pairs, final int size)
+        throws JsonProcessingException
+    {
+        if (parallel != null)
+            return parallel.diff(this, pairs, size);
+
+        final long[] ret = new long[size];
+        for (int index = 0; index < size; index++)
+            ret[index] = pairs.diff(this, index);
+        return ret;
+    }
+
+    /*
+     * Forget everything about the previous diff, so that this processor can
+     * be reused for another one
+     */
+    void reset()
+    {
+        unchanged.clear();
+        pending.clear();
+        diffs.clear();
+        removed.clear();
+        additions.clear();
+        hashes = StructuralHash.COMPUTED;
+    }
+
+    int unchangedMark()
+    {
+        return pending.size();
+    }
+
+    void valueUnchanged(final JsonPointer pointer, final JsonNode value,
+        final int hash)
+    {
+        pending.add(new UnchangedValue(pointer, value, hash));
+    }
+
+    /*
+     * The container these values belong to is unchanged as well: it will be
+     * registered in their place.
+     */
+    void discardUnchanged(final int mark)
+    {
+        pending.subList(mark, pending.size()).clear();
+    }
+
+    void keepUnchanged(final int mark)
+    {
+        final List<UnchangedValue> values = pending.subList(mark,
+            pending.size());
+
+        for (final UnchangedValue value: values)
+            bucket(unchanged, value.hash).add(value);
+        values.clear();
+    }
 
-    DiffProcessor(final Map<JsonPointer, JsonNode> unchanged)
+    Map<JsonPointer, JsonNode> getUnchangedValues()
     {
-        this.unchanged = Collections.unmodifiableMap(new HashMap<JsonPointer, JsonNode>(unchanged));
+        final Map<JsonPointer, JsonNode> ret
+            = new HashMap<JsonPointer, JsonNode>();
+
+        for (final List<UnchangedValue> values: unchanged.values())
+            for (final UnchangedValue value: values)
+                ret.put(value.pointer, value.value);
+        return ret;
     }
 
     void valueReplaced(final JsonPointer pointer, final JsonNode oldValue, final JsonNode newValue , final JsonNode source2 )
     {
+        if (pointer.isEmpty()) {
+            diffs.add(DiffOperation.replace(pointer, oldValue, newValue, source2));
+            return;
+        }
         String data = Iterables.getLast(pointer).getToken().getRaw();
         diffs.add(DiffOperation.replace(pointer.parent().parent().append("?").append(data), oldValue, newValue, source2));
         // added by sarvesh
@@ -58,29 +200,34 @@ final class DiffProcessor
     {
         //diffs.add(DiffOperation.copy(pointer,pointer,value));
     }*/
-    void valueRemoved(final JsonPointer pointer, final JsonNode oldvalue , final JsonNode newValue)
+    /*
+     * The context is the value the projection is applied to when the
+     * operation is serialized (see ContextProjection)
+     */
+    void valueRemoved(final JsonPointer pointer, final JsonNode oldvalue,
+        final JsonNode context)
     {
-        diffs.add(DiffOperation.remove(pointer, oldvalue , newValue));
+        if (oldvalue != null)
+            bucket(removed, hashes.hash(oldvalue)).add(diffs.size());
+        diffs.add(DiffOperation.remove(pointer, oldvalue, context,
+            projection));
         // added by sarvesh
         //diffs.add(DiffOperation.add(pointer,value));
     }
 
     void valueAdded(final JsonPointer pointer, final JsonNode value, final JsonNode source)
     {
-        final int removalIndex = findPreviouslyRemoved(value);
+        final int hash = hashes.hash(value);
+        final int removalIndex = findPreviouslyRemoved(hash, value);
         if (removalIndex != -1)
         {
             final DiffOperation removed = diffs.get(removalIndex);
-            diffs.remove(removalIndex);
+            diffs.set(removalIndex, null);
             diffs.add(DiffOperation.move(removed.getFrom(), value, pointer, value));
             return;
         }
-        final JsonPointer ptr = findUnchangedValue(value);
-        final DiffOperation op = ptr != null
-            ? DiffOperation.copy(ptr, pointer, value)
-            : DiffOperation.add(pointer, value, source);
-
-        diffs.add(op);
+        additions.put(diffs.size(), hash);
+        diffs.add(DiffOperation.add(pointer, value, source));
         // added by sarvesh
         // diffs.add(1,DiffOperation.add(pointer.append("->"),value.deepCopy()));
 
@@ -91,33 +238,91 @@ final class DiffProcessor
     {
         final List<JsonPatchOperation> list = new ArrayList<JsonPatchOperation>();
 
-        for (final DiffOperation op: diffs)
+        DiffOperation op;
+        Integer hash;
+        JsonPointer ptr;
+
+        for (int index = 0; index < diffs.size(); index++)
         {
+            op = diffs.get(index);
+            if (op == null)
+                continue;
+            hash = additions.get(index);
+            if (hash != null) {
+                ptr = findUnchangedValue(hash, op.getOldValue());
+                if (ptr != null)
+                    op = DiffOperation.copy(ptr, op.getPath(),
+                        op.getOldValue());
+            }
             list.add(op.asJsonPatchOperation());
         }
         return new JsonPatch(list);
     }
 
     @Nullable
-    private JsonPointer findUnchangedValue(final JsonNode value)
+    private JsonPointer findUnchangedValue(final int hash,
+        final JsonNode value)
     {
-        for (final Map.Entry<JsonPointer, JsonNode> entry: unchanged.entrySet())
-            if (EQUIVALENCE.equivalent(value, entry.getValue()))
-                return entry.getKey();
+        final List<UnchangedValue> candidates = unchanged.get(hash);
+        if (candidates == null)
+            return null;
+        for (final UnchangedValue candidate: candidates)
+            if (EQUIVALENCE.equivalent(value, candidate.value))
+                return candidate.pointer;
         return null;
     }
 
-    private int findPreviouslyRemoved(final JsonNode value)
+    private int findPreviouslyRemoved(final int hash, final JsonNode value)
     {
-        DiffOperation op;
+        final List<Integer> candidates = removed.get(hash);
+        if (candidates == null)
+            return -1;
 
-        for (int i = 0; i < diffs.size(); i++)
-        {
-            op = diffs.get(i);
-            if (op.getType() == DiffOperation.Type.REMOVE
-                && EQUIVALENCE.equivalent(value, op.getOldValue()))
-                return i;
+        final Iterator<Integer> iterator = candidates.iterator();
+        int index;
+
+        while (iterator.hasNext()) {
+            index = iterator.next();
+            if (EQUIVALENCE.equivalent(value, diffs.get(index).getOldValue())) {
+                iterator.remove();
+                return index;
+            }
         }
         return -1;
     }
+
+    private static <T> List<T> bucket(final Map<Integer, List<T>> index,
+        final int hash)
+    {
+        List<T> ret = index.get(hash);
+        if (ret == null) {
+            ret = new ArrayList<T>();
+            index.put(hash, ret);
+        }
+        return ret;
+    }
+
+    /*
+     * Pairs of values to diff in a container, by index
+     */
+    interface Pairs
+    {
+        long diff(DiffProcessor processor, int index)
+            throws JsonProcessingException;
+    }
+
+    private static final class UnchangedValue
+    {
+        private final JsonPointer pointer;
+        private final JsonNode value;
+        private final int hash;
+
+        private UnchangedValue(final JsonPointer pointer, final JsonNode value,
+            final int hash)
+        {
+            this.pointer = pointer;
+            this.value = value;
+            this.hash = hash;
+        }
+    }
 }
@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonpatch.ContextProjection;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A diff processor which only records what it is told
+ *
+ * <p>This is what tasks of a parallel diff (see {@link ParallelDiff}) write
+ * to. Recordings are then replayed, in order, to the actual processor.</p>
+ *
+ * <p>Unchanged value marks are relative to the start of the recording, and
+ * are translated when replayed.</p>
+ */
+final class DiffRecorder
+    extends DiffProcessor
+{
+    private final List<Event> events = new ArrayList<Event>();
+
+    /*
+     * Number of unchanged values the processor would have pending, relative to
+     * the start of the recording
+     */
+    private int pending = 0;
+
+    /*
+     * Operations are only created by the processor recordings are replayed
+     * to, hence the projection here does not matter; hashes, however, are
+     * still needed to diff values.
+     */
+    DiffRecorder(final ParallelDiff parallel,
+        final StructuralHash.Hashes hashes)
+    {
+        super(parallel, ContextProjection.ENTITLEMENT);
+        setHashes(hashes);
+    }
+
+    void replay(final DiffProcessor processor)
+    {
+        final int base = processor.unchangedMark();
+
+        for (final Event event: events)
+            event.replay(processor, base);
+    }
+
+    @Override
+    int unchangedMark()
+    {
+        return pending;
+    }
+
+    @Override
+    void valueUnchanged(final JsonPointer pointer, final JsonNode value,
+        final int hash)
+    {
+        pending++;
+        events.add(new Event()
+        {
+            @Override
+            void replay(final DiffProcessor processor, final int base)
+            {
+                processor.valueUnchanged(pointer, value, hash);
+            }
+        });
+    }
+
+    @Override
+    void discardUnchanged(final int mark)
+    {
+        pending = mark;
+        events.add(new Event()
+        {
+            @Override
+            void replay(final DiffProcessor processor, final int base)
+            {
+                processor.discardUnchanged(base + mark);
+            }
+        });
+    }
+
+    @Override
+    void keepUnchanged(final int mark)
+    {
+        pending = mark;
+        events.add(new Event()
+        {
+            @Override
+            void replay(final DiffProcessor processor, final int base)
+            {
+                processor.keepUnchanged(base + mark);
+            }
+        });
+    }
+
+    @Override
+    void valueReplaced(final JsonPointer pointer, final JsonNode oldValue,
+        final JsonNode newValue, final JsonNode source2)
+    {
+        events.add(new Event()
+        {
+            @Override
+            void replay(final DiffProcessor processor, final int base)
+            {
+                processor.valueReplaced(pointer, oldValue, newValue, source2);
+            }
+        });
+    }
+
+    @Override
+    void valueRemoved(final JsonPointer pointer, final JsonNode oldvalue,
+        final JsonNode context)
+    {
+        events.add(new Event()
+        {
+            @Override
+            void replay(final DiffProcessor processor, final int base)
+            {
+                processor.valueRemoved(pointer, oldvalue, context);
+            }
+        });
+    }
+
+    @Override
+    void valueAdded(final JsonPointer pointer, final JsonNode value,
+        final JsonNode source)
+    {
+        events.add(new Event()
+        {
+            @Override
+            void replay(final DiffProcessor processor, final int base)
+            {
+                processor.valueAdded(pointer, value, source);
+            }
+        });
+    }
+
+    private abstract static class Event
+    {
+        abstract void replay(DiffProcessor processor, int base);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonNumEquals;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonpatch.JsonPatchMessages;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * A JSON value, along with the structural hashes of all its subtrees
+ *
+ * <p>Hashes are computed once, when the tree is created, and are consistent
+ * with {@link JsonNumEquals}: equivalent values always have the same hash.</p>
+ *
+ * <p>When two hashed trees are diffed (see {@link
+ * JsonDiff#asJsonPatch(HashedJsonTree, HashedJsonTree, Map)}), subtrees are
+ * only compared if their hashes are equal, and are then not walked any
+ * further if they are equivalent; subtrees which are the same instance in
+ * both trees are not compared at all. Hashes are also used to align array
+ * elements, and to detect values which have been moved or copied.</p>
+ *
+ * <p>When diffing successive snapshots of a value, the tree used as the
+ * target of a diff can be used as the source of the next one: its hashes are
+ * not computed again.</p>
+ *
+ * <p>The value is not copied: it must not be modified once hashed, since its
+ * hashes would then no longer match it.</p>
+ *
+ * @since 1.13
+ */
+public final class HashedJsonTree
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+
+    private final JsonNode node;
+
+    /*
+     * Hashes of containers only, by identity; hashes of other values are
+     * cheap enough to compute again
+     */
+    private final Map<JsonNode, Integer> hashes
+        = new IdentityHashMap<JsonNode, Integer>();
+
+    private final int hash;
+
+    private HashedJsonTree(final JsonNode node)
+    {
+        this.node = node;
+        hash = new StructuralHash.Hashes()
+        {
+            @Override
+            public boolean isPrecomputed()
+            {
+                return false;
+            }
+
+            @Override
+            public int hash(final JsonNode node)
+            {
+                final int ret = StructuralHash.hash(node, this);
+                if (node.isContainerNode())
+                    hashes.put(node, ret);
+                return ret;
+            }
+        }.hash(node);
+    }
+
+    /**
+     * Hash all subtrees of a value
+     *
+     * @param node the value
+     * @return the hashed tree
+     */
+    public static HashedJsonTree of(final JsonNode node)
+    {
+        BUNDLE.checkNotNull(node, "common.nullArgument");
+        return new HashedJsonTree(node);
+    }
+
+    /**
+     * Return the value of this tree
+     *
+     * @return the value, as passed to {@link #of(JsonNode)}
+     */
+    public JsonNode getNode()
+    {
+        return node;
+    }
+
+    /**
+     * Return the structural hash of the value of this tree
+     *
+     * @return the hash
+     */
+    public int getHash()
+    {
+        return hash;
+    }
+
+    /**
+     * Return the structural hash of a subtree of this tree
+     *
+     * @param pointer the pointer to the subtree
+     * @return the hash
+     * @throws IllegalArgumentException there is no subtree at this pointer
+     */
+    public int getHash(final JsonPointer pointer)
+    {
+        BUNDLE.checkNotNull(pointer, "common.nullArgument");
+
+        final JsonNode subtree = pointer.get(node);
+
+        BUNDLE.checkArgument(subtree != null, "jsonDiff.noSuchSubtree");
+        return hashOf(subtree);
+    }
+
+    /*
+     * Hashes of the subtrees of both trees of a diff
+     */
+    static StructuralHash.Hashes hashes(final HashedJsonTree source,
+        final HashedJsonTree target)
+    {
+        return new StructuralHash.Hashes()
+        {
+            @Override
+            public boolean isPrecomputed()
+            {
+                return true;
+            }
+
+            @Override
+            public int hash(final JsonNode node)
+            {
+                Integer ret = source.hashes.get(node);
+                if (ret == null)
+                    ret = target.hashes.get(node);
+                return ret != null ? ret : StructuralHash.hash(node, this);
+            }
+        };
+    }
+
+    private int hashOf(final JsonNode subtree)
+    {
+        final Integer ret = hashes.get(subtree);
+        return ret != null ? ret : StructuralHash.hash(subtree);
+    }
+}
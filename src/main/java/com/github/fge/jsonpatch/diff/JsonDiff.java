@@ -27,18 +27,20 @@ import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.github.fge.jackson.JacksonUtils;
 import com.github.fge.jackson.JsonNumEquals;
-import com.github.fge.jackson.NodeType;
 import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonpatch.ContextProjection;
 import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchMessages;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import javax.json.JsonObject;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * JSON "diff" implementation
@@ -56,6 +58,10 @@ import java.util.*;
  * move operations, or copy operations if a common element exists, at the same
  * {@link JsonPointer pointer}, in both the source and destination.</p>
  *
+ * <p>Array elements are aligned before being compared, either by identity
+ * attributes or by value, so that inserting an element at the start of an
+ * array does not generate a replacement for all elements after it.</p>
+ *
  * <p>You can obtain a diff either as a {@link JsonPatch} directly or, for
  * backwards compatibility, as a {@link JsonNode}.</p>
  *
@@ -71,6 +77,14 @@ public final class JsonDiff
     private static final JsonNumEquals EQUIVALENCE
         = JsonNumEquals.getInstance();
 
+    /*
+     * Return value of generateDiffs() when values differ; when they are
+     * equivalent, their hash is returned as an unsigned int, which is always
+     * positive.
+     */
+    private static final long DIFFERENT = -1L;
+    private static final long UNSIGNED = 0xffffffffL;
+
     private JsonDiff()
     {
     }
@@ -81,8 +95,11 @@ public final class JsonDiff
      *
      * @param source the node to be patched
      * @param target the expected result after applying the patch
-     * @param map checking attributes
+     * @param map checking attributes; for the array at each pointer, these
+     * attributes also identify elements when aligning source and target
      * @return the patch as a {@link JsonPatch}
+     * @throws IllegalArgumentException elements of the source lack some of
+     * their checking attributes (see {@link ValidationPlan})
      *
      * @since 1.9
      */
@@ -90,43 +107,137 @@ public final class JsonDiff
                                         final JsonNode target,
                                         final Map<JsonPointer, Set<String>> map)
             throws JsonProcessingException {
+        return asJsonPatch(source, target, map, null,
+            ContextProjection.ENTITLEMENT);
+    }
+
+    /**
+     * Generate a JSON patch for transforming the source node into the target
+     * node, with the given context for removals
+     *
+     * @param source the node to be patched
+     * @param target the expected result after applying the patch
+     * @param map checking attributes; for the array at each pointer, these
+     * attributes also identify elements when aligning source and target
+     * @param projection the fields written as the context of {@code remove}
+     * operations
+     * @return the patch as a {@link JsonPatch}
+     * @throws IllegalArgumentException elements of the source lack some of
+     * their checking attributes (see {@link ValidationPlan})
+     *
+     * @since 1.13
+     */
+    public static JsonPatch asJsonPatch(final JsonNode source,
+        final JsonNode target, final Map<JsonPointer, Set<String>> map,
+        final ContextProjection projection)
+        throws JsonProcessingException
+    {
+        BUNDLE.checkNotNull(projection, "common.nullArgument");
+        return asJsonPatch(source, target, map, null, projection);
+    }
+
+    /**
+     * Generate a JSON patch for transforming the source node into the target
+     * node, diffing large containers in parallel
+     *
+     * <p>When an object has more than {@code threshold} members in common in
+     * the source and target, or an array more than {@code threshold}
+     * elements, these are split into ranges of at most {@code threshold}
+     * members or elements, which are diffed by separate tasks of the given
+     * pool. The patch is the same as the one generated by {@link
+     * #asJsonPatch(JsonNode, JsonNode, Map)}.</p>
+     *
+     * @param source the node to be patched
+     * @param target the expected result after applying the patch
+     * @param map checking attributes; for the array at each pointer, these
+     * attributes also identify elements when aligning source and target
+     * @param pool the pool to run diff tasks in
+     * @param threshold the maximum number of members or elements diffed by a
+     * single task
+     * @return the patch as a {@link JsonPatch}
+     * @throws IllegalArgumentException threshold is not strictly positive, or
+     * elements of the source lack some of their checking attributes
+     *
+     * @since 1.13
+     */
+    public static JsonPatch asJsonPatch(final JsonNode source,
+        final JsonNode target, final Map<JsonPointer, Set<String>> map,
+        final ForkJoinPool pool, final int threshold)
+        throws JsonProcessingException
+    {
+        BUNDLE.checkNotNull(pool, "common.nullArgument");
+        BUNDLE.checkArgument(threshold > 0, "jsonDiff.invalidThreshold");
+        return asJsonPatch(source, target, map,
+            new ParallelDiff(pool, threshold), ContextProjection.ENTITLEMENT);
+    }
 
+    /**
+     * Generate a JSON patch for transforming the value of the source tree into
+     * the value of the target tree
+     *
+     * <p>The patch is the same as the one generated by {@link
+     * #asJsonPatch(JsonNode, JsonNode, Map)} for these values; the hashes of
+     * both trees are used to avoid walking subtrees which are unchanged (see
+     * {@link HashedJsonTree}).</p>
+     *
+     * @param source the tree to be patched
+     * @param target the expected result after applying the patch
+     * @param map checking attributes; for the array at each pointer, these
+     * attributes also identify elements when aligning source and target
+     * @return the patch as a {@link JsonPatch}
+     * @throws IllegalArgumentException elements of the source lack some of
+     * their checking attributes (see {@link ValidationPlan})
+     *
+     * @since 1.13
+     */
+    public static JsonPatch asJsonPatch(final HashedJsonTree source,
+        final HashedJsonTree target, final Map<JsonPointer, Set<String>> map)
+        throws JsonProcessingException
+    {
         BUNDLE.checkNotNull(source, "common.nullArgument");
         BUNDLE.checkNotNull(target, "common.nullArgument");
 
-        DiffProcessor processor = null;
-
-        for (Map.Entry<JsonPointer, Set<String>> me : map.entrySet()) {
+        final DiffProcessor processor = new DiffProcessor();
 
-            Set<String> s = me.getValue();
+        processor.setHashes(HashedJsonTree.hashes(source, target));
+        return asJsonPatch(source.getNode(), target.getNode(),
+            ValidationPlan.compile(map), ArrayMatcher.of(map), processor);
+    }
 
-            ArrayNode array = (ArrayNode) source.get("Entitlements");
+    private static JsonPatch asJsonPatch(final JsonNode source,
+        final JsonNode target, final Map<JsonPointer, Set<String>> map,
+        @Nullable final ParallelDiff parallel,
+        final ContextProjection projection)
+        throws JsonProcessingException
+    {
+        return asJsonPatch(source, target, ValidationPlan.compile(map),
+            ArrayMatcher.of(map), new DiffProcessor(parallel, projection));
+    }
 
-            boolean flag = false;
-            for (int i = 0; i < array.size(); i++)
-            {
-                for (String value : s)
-                {
-                    if (array.get(i).get(value) == null)
-                    {
-                        flag = true;
-                    }
-                }
-            }
+    /*
+     * The processor is reset once the patch is generated, so that it can be
+     * reused (see JsonDiffEngine).
+     */
+    static JsonPatch asJsonPatch(final JsonNode source, final JsonNode target,
+        final ValidationPlan plan, final ArrayMatcher matcher,
+        final DiffProcessor reusable)
+        throws JsonProcessingException
+    {
+        BUNDLE.checkNotNull(source, "common.nullArgument");
+        BUNDLE.checkNotNull(target, "common.nullArgument");
 
-            if (!flag) {
-                //then do ...
-                final Map<JsonPointer, JsonNode> unchanged = getUnchangedValues(source, target);
-                processor = new DiffProcessor(unchanged);
+        final ValidationResult result = plan.validate(source);
 
-                generateDiffs(processor, JsonPointer.empty(), source, target, source);
+        if (!result.isValid())
+            throw new IllegalArgumentException(
+                BUNDLE.printf("jsonDiff.missingAttributes", result));
 
-            } else {
-                //then do ...
-                System.out.println("3 attributes are not present in the entitlement node");
-            }
+        try {
+            diff(reusable, matcher, source, target);
+            return reusable.getPatch();
+        } finally {
+            reusable.reset();
         }
-        return processor.getPatch();
     }
 
     /**
@@ -161,63 +272,99 @@ public final class JsonDiff
      */
     public static JsonNode asJson(final JsonNode source, final JsonNode target, final Map<JsonPointer, Set<String>> map )
     {
-        final String s;
-
+        /*
+         * Operations are serialized into a token buffer, and the tree is built
+         * from it; this gives the same tree as serializing to a string and
+         * parsing it back, without the cost of either.
+         */
         try {
-            s = MAPPER.writeValueAsString(asJsonPatch(source, target,map));
-            return MAPPER.readTree(s);
+            return MAPPER.valueToTree(asJsonPatch(source, target,map));
         } catch (IOException e) {
             throw new RuntimeException("cannot generate JSON diff", e);
         }
     }
 
-    private static void generateDiffs(final DiffProcessor processor,
+    /*
+     * Single walk of both values: each pair of nodes is compared exactly once,
+     * and unchanged values are registered to the processor on the way.
+     */
+    private static void diff(final DiffProcessor processor,
+        final ArrayMatcher matcher, final JsonNode source,
+        final JsonNode target)
+        throws JsonProcessingException
+    {
+        final int mark = processor.unchangedMark();
+        final long hash = generateDiffs(processor, matcher,
+            JsonPointer.empty(), source, target, source);
+
+        if (hash != DIFFERENT)
+            processor.valueUnchanged(JsonPointer.empty(), target, (int) hash);
+        processor.keepUnchanged(mark);
+    }
+
+    /*
+     * Returns DIFFERENT if the two values differ. Otherwise, no operation has
+     * been generated, and the structural hash of the value is returned (as an
+     * unsigned int): it is then up to the caller to register the value as
+     * unchanged, or not if its container is unchanged as well.
+     */
+    static long generateDiffs(final DiffProcessor processor,
+                                      final ArrayMatcher matcher,
                                       final JsonPointer pointer,
                                       final JsonNode source,
                                       final JsonNode target,
                                       final JsonNode source2)
             throws JsonProcessingException
     {
+        /*
+         * If either value is not a container, this is a simple comparison;
+         * note that two numbers may be equivalent even though their node types
+         * differ.
+         */
+        final StructuralHash.Hashes hashes = processor.getHashes();
 
-        if (EQUIVALENCE.equivalent(source, target))
-        {return;}
-
-        final NodeType firstType = NodeType.getNodeType(source);
-        final NodeType secondType = NodeType.getNodeType(target);
+        if (!source.isContainerNode() || !target.isContainerNode()) {
+            if (EQUIVALENCE.equivalent(source, target))
+                return hashes.hash(target) & UNSIGNED;
+            processor.valueReplaced(pointer, source, target, source2);
+            return DIFFERENT;
+        }
 
         /*
-         * Node types differ: generate a replacement operation.
+         * If the hashes of both trees are known, containers with different
+         * hashes cannot be equivalent, and equivalent containers need not be
+         * walked: their members would all be unchanged, and their hash would
+         * be the same.
          */
-        if (firstType != secondType) {
-            processor.valueReplaced(pointer, source, target, source2);
-            return;
+        if (hashes.isPrecomputed()) {
+            final int hash = hashes.hash(target);
+            if (source == target || hash == hashes.hash(source)
+                && EQUIVALENCE.equivalent(source, target))
+                return hash & UNSIGNED;
         }
 
         /*
-         * If we reach this point, it means that both nodes are the same type,
-         * but are not equivalent.
-         *
-         * If this is not a container, generate a replace operation.
+         * Node types differ: generate a replacement operation.
          */
-        if (!source.isContainerNode()) {
-            processor.valueReplaced(pointer, source, target,source2);
-            return;
+        if (source.isObject() != target.isObject()) {
+            processor.valueReplaced(pointer, source, target, source2);
+            return DIFFERENT;
         }
 
         /*
          * If we reach this point, both nodes are either objects or arrays;
          * delegate.
          */
-        if (firstType == NodeType.OBJECT)
-            generateObjectDiffs(processor, pointer, (ObjectNode) source,
-                (ObjectNode) target);
-        else // array
-            generateArrayDiffs(processor, pointer, (ArrayNode) source,
-                (ArrayNode) target);
+        return source.isObject()
+            ? generateObjectDiffs(processor, matcher, pointer,
+                (ObjectNode) source, (ObjectNode) target)
+            : generateArrayDiffs(processor, matcher, pointer,
+                (ArrayNode) source, (ArrayNode) target, 0);
     }
 
-    private static void generateObjectDiffs(final DiffProcessor processor,
-        final JsonPointer pointer, final ObjectNode source,
+    private static long generateObjectDiffs(final DiffProcessor processor,
+        final ArrayMatcher matcher, final JsonPointer pointer,
+        final ObjectNode source,
         final ObjectNode target) throws JsonProcessingException
     {
         final Set<String> firstFields = collect(source.fieldNames(), new TreeSet<String>());
@@ -228,12 +375,12 @@ public final class JsonDiff
 
         for (final String field: Collections.unmodifiableSet(copy1)) {
 
-            //for removed operation here i take 3 parameter from the node.
-            ArrayNode og_value_node = new ObjectMapper().createArrayNode();
-            og_value_node.add(target.get("Application Key"));
-            og_value_node.add(target.get("Entitlement Type"));
-            og_value_node.add(target.get("Entitlement Name"));
-            processor.valueRemoved(pointer.parent().append("?"), target.get(field) , og_value_node);
+            /*
+             * The context of a removed member is the object it was removed
+             * from
+             */
+            processor.valueRemoved(pointer.parent().append("?"),
+                target.get(field), target);
 
         }
         final Set<String> copy2 = new HashSet<String>(secondFields);
@@ -254,12 +401,45 @@ public final class JsonDiff
             processor.valueAdded(pointer.parent().append("->"), jsonNode1);*/
 
         }
-        final Set<String> intersection = new HashSet<String>(firstFields);
-        intersection.retainAll(secondFields);
+        final Set<String> common = new HashSet<String>(firstFields);
+        common.retainAll(secondFields);
 
-        for (final String field: intersection)
-            generateDiffs(processor, pointer.append(field), source.get(field),
-                target.get(field) , source);
+        final List<String> intersection = new ArrayList<String>(common);
+
+        final int mark = processor.unchangedMark();
+        final long[] fieldHashes = processor.diffPairs(
+            new DiffProcessor.Pairs()
+            {
+                @Override
+                public long diff(final DiffProcessor processor,
+                    final int index)
+                    throws JsonProcessingException
+                {
+                    final String field = intersection.get(index);
+                    final JsonPointer fieldPointer = pointer.append(field);
+                    final long ret = generateDiffs(processor, matcher,
+                        fieldPointer, source.get(field), target.get(field),
+                        source);
+                    if (ret != DIFFERENT)
+                        processor.valueUnchanged(fieldPointer,
+                            target.get(field), (int) ret);
+                    return ret;
+                }
+            }, intersection.size());
+
+        boolean unchanged = copy1.isEmpty() && copy2.isEmpty();
+        int hash = 0;
+
+        for (int index = 0; index < fieldHashes.length; index++) {
+            if (fieldHashes[index] == DIFFERENT) {
+                unchanged = false;
+                continue;
+            }
+            hash += intersection.get(index).hashCode()
+                ^ (int) fieldHashes[index];
+        }
+
+        return unchangedContainer(processor, mark, unchanged, hash);
     }
 
     private static <T> Set<T> collect(Iterator<T> from, Set<T> to) {
@@ -277,110 +457,98 @@ public final class JsonDiff
 
 
 
-    private static void generateArrayDiffs(final DiffProcessor processor,
-        final JsonPointer pointer, final ArrayNode source,
-        final ArrayNode target) throws JsonProcessingException {
-        final int firstSize = source.size();
-        final int secondSize = target.size();
-        final int size = Math.min(firstSize, secondSize);
-
-        /*
-         * Source array is larger; in this case, elements are removed from the
-         * target; the index of removal is always the original arrays's length.
-         */
-        for (int index = size; index < firstSize; index++) {
-            ArrayNode og_value_node = new ObjectMapper().createArrayNode();
-            og_value_node.add(source.get("Application Key"));
-            og_value_node.add(source.get("Entitlement Type"));
-            og_value_node.add(source.get("Entitlement Name"));
+    /*
+     * Elements are aligned first (see ArrayMatcher), so that inserting or
+     * removing one element does not shift all the elements after it.
+     *
+     * The two arrays may also be slices of larger arrays (see
+     * StreamingJsonDiff), in which case offset is the index of the first
+     * element of the source slice in the whole source array.
+     */
+    static long generateArrayDiffs(final DiffProcessor processor,
+        final ArrayMatcher matcher, final JsonPointer pointer,
+        final ArrayNode source, final ArrayNode target, final int offset)
+            throws JsonProcessingException {
+        final int[] alignment = matcher.align(pointer, source, target,
+            processor.getHashes());
+        final boolean[] paired = new boolean[target.size()];
 
-            // System.out.println(""+og_value_node.toPrettyString());
+        boolean unchanged = alignment.length == paired.length;
 
-            processor.valueRemoved(pointer.parent().append("?"), source.get(index) , og_value_node);
-            //check code here because i added this code :- source.findValue(String.valueOf(index))
-        }
-        for (int index = 0; index < size; index++) {
-            //here we simply check op type and change index with dash but unfortunately our op is not in scope.
-            generateDiffs(processor, pointer.append(index),
-                    source.get(index), target.get(index), source);
-        }
-        // Deal with the destination array being larger...
-        for (int index = size; index < secondSize; index++) {
-            processor.valueAdded(pointer, target.get(index) , null);
-            //adding new attribute or element
-           /* String json = "{\n" +
-                    "  \"opb\": \"sample\",\n" +
-                    "  \"path\": \"/volRoleInVEM/?\",\n" +
-                    "  \"original_value\": {\n" +
-                    "    \"roleName\": \"role1\"\n" +
-                    "  }\n" +
-                    "}\n" +
-                    "\n";
-            JsonNode jsonNode1 = new ObjectMapper().readTree(json);
-            processor.valueAdded(pointer , jsonNode1);*/
+        for (int index = 0; index < alignment.length; index++) {
+            if (alignment[index] != -1) {
+                paired[alignment[index]] = true;
+                unchanged &= alignment[index] == index;
+                continue;
+            }
+            unchanged = false;
+            final JsonNode removed = source.get(index);
+            processor.valueRemoved(pointer.append("?"), removed, removed);
         }
-    }
 
+        final int mark = processor.unchangedMark();
+        final long[] elementHashes = processor.diffPairs(
+            new DiffProcessor.Pairs()
+            {
+                @Override
+                public long diff(final DiffProcessor processor,
+                    final int index)
+                    throws JsonProcessingException
+                {
+                    //here we simply check op type and change index with dash but unfortunately our op is not in scope.
+                    if (alignment[index] == -1)
+                        return DIFFERENT;
+                    final JsonPointer elementPointer
+                        = pointer.append(offset + index);
+                    final long ret = generateDiffs(processor, matcher,
+                        elementPointer, source.get(index),
+                        target.get(alignment[index]), source);
+                    if (ret != DIFFERENT)
+                        processor.valueUnchanged(elementPointer,
+                            target.get(alignment[index]), (int) ret);
+                    return ret;
+                }
+            }, alignment.length);
 
-    static Map<JsonPointer, JsonNode> getUnchangedValues(final JsonNode source,
-        final JsonNode target)
-    {
-        final Map<JsonPointer, JsonNode> ret = new HashMap<JsonPointer, JsonNode>();
-        computeUnchanged(ret, JsonPointer.empty(), source, target);
-        return ret;
-    }
+        int hash = 1;
 
-    private static void computeUnchanged(final Map<JsonPointer, JsonNode> ret,
-        final JsonPointer pointer, final JsonNode first, final JsonNode second)
-    {
-        if (EQUIVALENCE.equivalent(first, second)) {
-            ret.put(pointer, second);
-            return;
+        for (final long elementHash: elementHashes) {
+            if (elementHash == DIFFERENT) {
+                unchanged = false;
+                continue;
+            }
+            hash = 31 * hash + (int) elementHash;
         }
-
-        final NodeType firstType = NodeType.getNodeType(first);
-        final NodeType secondType = NodeType.getNodeType(second);
-
-        if (firstType != secondType)
-            return; // nothing in common
-
-        // We know they are both the same type, so...
-
-        switch (firstType) {
-            case OBJECT:
-                computeObject(ret, pointer, first, second);
-                break;
-            case ARRAY:
-                computeArray(ret, pointer, first, second);
-                break;
-            default:
-                /* nothing */
+        for (int index = 0; index < paired.length; index++) {
+            if (!paired[index])
+                processor.valueAdded(pointer, target.get(index),
+                    target.get(index));
         }
+
+        return unchangedContainer(processor, mark, unchanged, hash);
     }
 
-    private static void computeObject(final Map<JsonPointer, JsonNode> ret,
-        final JsonPointer pointer, final JsonNode source,
-        final JsonNode target)
+    private static long unchangedContainer(final DiffProcessor processor,
+        final int mark, final boolean unchanged, final int hash)
     {
-        final Iterator<String> firstFields = source.fieldNames();
-
-        String name;
-
-        while (firstFields.hasNext()) {
-            name = firstFields.next();
-            if (!target.has(name))
-                continue;computeUnchanged(ret, pointer.append(name), source.get(name),
-                target.get(name));
+        if (unchanged) {
+            processor.discardUnchanged(mark);
+            return hash & UNSIGNED;
         }
+        processor.keepUnchanged(mark);
+        return DIFFERENT;
     }
 
-    private static void computeArray(final Map<JsonPointer, JsonNode> ret,
-        final JsonPointer pointer, final JsonNode source, final JsonNode target)
+    static Map<JsonPointer, JsonNode> getUnchangedValues(final JsonNode source,
+        final JsonNode target)
     {
-        final int size = Math.min(source.size(), target.size());
+        final DiffProcessor processor = new DiffProcessor();
 
-        for (int i = 0; i < size; i++) {
-            computeUnchanged(ret, pointer.append(i), source.get(i), target.get(i));
+        try {
+            diff(processor, ArrayMatcher.byValue(), source, target);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("cannot generate JSON diff", e);
         }
+        return processor.getUnchangedValues();
     }
 }
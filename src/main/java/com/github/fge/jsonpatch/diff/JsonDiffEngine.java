@@ -0,0 +1,235 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchMessages;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Diff of many pairs of JSON values
+ *
+ * <p>An engine diffs pairs of values using {@link JsonDiff#asJsonPatch(JsonNode,
+ * JsonNode, Map)}, with the same checking attributes for all pairs, in tasks
+ * run by an executor. What does not depend on a given pair is only built once
+ * per engine, or once per thread for what is modified while diffing.</p>
+ *
+ * <p>Results are passed to a {@link Callback}. Pairs are read from their
+ * iterator only as long as the number of pairs read but whose callback has not
+ * returned yet is below a limit: a slow callback therefore slows down the
+ * reading of pairs instead of letting patches accumulate.</p>
+ *
+ * <p>An engine can be used by several threads at once.</p>
+ *
+ * @since 1.13
+ */
+@ParametersAreNonnullByDefault
+public final class JsonDiffEngine
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+
+    private final ValidationPlan plan;
+    private final ArrayMatcher matcher;
+    private final Executor executor;
+    private final int maxPending;
+
+    private final ThreadLocal<DiffProcessor> processors
+        = new ThreadLocal<DiffProcessor>()
+        {
+            @Override
+            protected DiffProcessor initialValue()
+            {
+                return new DiffProcessor();
+            }
+        };
+
+    /**
+     * Constructor
+     *
+     * @param map checking attributes, as for {@link
+     * JsonDiff#asJsonPatch(JsonNode, JsonNode, Map)}
+     * @param executor the executor to run diffs with
+     * @param maxPending the maximum number of pairs read from an iterator and
+     * whose callback has not returned yet
+     * @throws IllegalArgumentException maxPending is not strictly positive
+     */
+    public JsonDiffEngine(final Map<JsonPointer, Set<String>> map,
+        final Executor executor, final int maxPending)
+    {
+        BUNDLE.checkNotNull(map, "common.nullArgument");
+        BUNDLE.checkNotNull(executor, "common.nullArgument");
+        BUNDLE.checkArgument(maxPending > 0, "jsonDiff.invalidPendingLimit");
+        plan = ValidationPlan.compile(map);
+        matcher = ArrayMatcher.of(map);
+        this.executor = executor;
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Diff all pairs of an iterator
+     *
+     * <p>This method returns once the iterator is exhausted and callbacks have
+     * returned for all pairs. Callbacks are called from the threads of the
+     * executor, and possibly concurrently.</p>
+     *
+     * <p>If the iterator fails, or the executor rejects a diff, no more pairs
+     * are read; this method waits for callbacks of pairs already submitted,
+     * then throws the exception.</p>
+     *
+     * @param pairs the pairs to diff
+     * @param callback the callback for results
+     * @param <K> the type of keys of pairs
+     * @throws InterruptedException interrupted while waiting for callbacks
+     * @throws RejectedExecutionException the executor rejected a diff
+     */
+    public <K> void diff(final Iterator<? extends Pair<K>> pairs,
+        final Callback<? super K> callback)
+        throws InterruptedException
+    {
+        BUNDLE.checkNotNull(pairs, "common.nullArgument");
+        BUNDLE.checkNotNull(callback, "common.nullArgument");
+
+        final Semaphore pending = new Semaphore(maxPending);
+
+        try {
+            while (pairs.hasNext()) {
+                pending.acquire();
+                try {
+                    final Pair<K> pair = pairs.next();
+                    executor.execute(new Runnable()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            try {
+                                diff(pair, callback);
+                            } finally {
+                                pending.release();
+                            }
+                        }
+                    });
+                } catch (RuntimeException | Error e) {
+                    /*
+                     * Nothing was submitted with this permit
+                     */
+                    pending.release();
+                    throw e;
+                }
+            }
+        } finally {
+            pending.acquireUninterruptibly(maxPending);
+        }
+    }
+
+    private <K> void diff(final Pair<K> pair,
+        final Callback<? super K> callback)
+    {
+        final JsonPatch patch;
+
+        try {
+            patch = JsonDiff.asJsonPatch(pair.source, pair.target, plan,
+                matcher, processors.get());
+        } catch (JsonProcessingException | RuntimeException e) {
+            callback.onFailure(pair.key, e);
+            return;
+        }
+        callback.onPatch(pair.key, patch);
+    }
+
+    /**
+     * A pair of values to diff
+     *
+     * @param <K> the type of the key of this pair
+     */
+    public static final class Pair<K>
+    {
+        private final K key;
+        private final JsonNode source;
+        private final JsonNode target;
+
+        /**
+         * Constructor
+         *
+         * @param key the key identifying this pair in callbacks
+         * @param source the node to be patched
+         * @param target the expected result after applying the patch
+         */
+        public Pair(final K key, final JsonNode source, final JsonNode target)
+        {
+            BUNDLE.checkNotNull(source, "common.nullArgument");
+            BUNDLE.checkNotNull(target, "common.nullArgument");
+            this.key = key;
+            this.source = source;
+            this.target = target;
+        }
+
+        public K getKey()
+        {
+            return key;
+        }
+
+        public JsonNode getSource()
+        {
+            return source;
+        }
+
+        public JsonNode getTarget()
+        {
+            return target;
+        }
+    }
+
+    /**
+     * Receiver of diff results
+     *
+     * @param <K> the type of keys of pairs
+     */
+    public interface Callback<K>
+    {
+        /**
+         * Called with the patch generated for a pair
+         *
+         * @param key the key of the pair
+         * @param patch the patch
+         */
+        void onPatch(K key, JsonPatch patch);
+
+        /**
+         * Called when the diff of a pair failed
+         *
+         * @param key the key of the pair
+         * @param e the exception thrown by the diff
+         */
+        void onFailure(K key, Exception e);
+    }
+}
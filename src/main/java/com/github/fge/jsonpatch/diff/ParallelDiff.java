@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel diff of the members of large containers
+ *
+ * <p>Pairs of members (or elements) are split into ranges until ranges are no
+ * larger than the threshold, and each range is diffed by a separate task. The
+ * output of each task is recorded (see {@link DiffRecorder}), and recordings
+ * are replayed to the processor in order once all tasks are done; the
+ * processor therefore sees exactly what a sequential diff would have produced,
+ * and so does the generated patch.</p>
+ *
+ * <p>Values within a task are diffed the same way, which means large
+ * containers within large containers are split as well.</p>
+ */
+final class ParallelDiff
+{
+    private final ForkJoinPool pool;
+    private final int threshold;
+
+    ParallelDiff(final ForkJoinPool pool, final int threshold)
+    {
+        this.pool = pool;
+        this.threshold = threshold;
+    }
+
+    long[] diff(final DiffProcessor processor, final DiffProcessor.Pairs pairs,
+        final int size)
+        throws JsonProcessingException
+    {
+        final long[] ret = new long[size];
+
+        if (size <= threshold) {
+            for (int index = 0; index < size; index++)
+                ret[index] = pairs.diff(processor, index);
+            return ret;
+        }
+
+        final DiffTask task = new DiffTask(pairs, processor.getHashes(), ret,
+            0, size);
+        final List<DiffRecorder> recorders;
+
+        try {
+            recorders = ForkJoinTask.inForkJoinPool() ? task.invoke()
+                : pool.invoke(task);
+        } catch (DiffFailure e) {
+            throw e.getCause();
+        }
+
+        for (final DiffRecorder recorder: recorders)
+            recorder.replay(processor);
+        return ret;
+    }
+
+    private final class DiffTask
+        extends RecursiveTask<List<DiffRecorder>>
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final DiffProcessor.Pairs pairs;
+        private final StructuralHash.Hashes hashes;
+        private final long[] results;
+        private final int start;
+        private final int end;
+
+        private DiffTask(final DiffProcessor.Pairs pairs,
+            final StructuralHash.Hashes hashes, final long[] results,
+            final int start, final int end)
+        {
+            this.pairs = pairs;
+            this.hashes = hashes;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected List<DiffRecorder> compute()
+        {
+            if (end - start <= threshold)
+                return Collections.singletonList(diffRange());
+
+            final int middle = (start + end) >>> 1;
+            final DiffTask first = new DiffTask(pairs, hashes, results, start,
+                middle);
+            final DiffTask second = new DiffTask(pairs, hashes, results, middle,
+                end);
+
+            first.fork();
+
+            final List<DiffRecorder> last = second.compute();
+            final List<DiffRecorder> ret
+                = new ArrayList<DiffRecorder>(first.join());
+
+            ret.addAll(last);
+            return ret;
+        }
+
+        private DiffRecorder diffRange()
+        {
+            final DiffRecorder ret = new DiffRecorder(ParallelDiff.this,
+                hashes);
+
+            try {
+                for (int index = start; index < end; index++)
+                    results[index] = pairs.diff(ret, index);
+            } catch (JsonProcessingException e) {
+                throw new DiffFailure(e);
+            }
+            return ret;
+        }
+    }
+
+    /*
+     * Carries checked exceptions out of tasks
+     */
+    private static final class DiffFailure
+        extends RuntimeException
+    {
+        private static final long serialVersionUID = 1L;
+
+        private DiffFailure(final JsonProcessingException cause)
+        {
+            super(cause);
+        }
+
+        @Override
+        public synchronized JsonProcessingException getCause()
+        {
+            return (JsonProcessingException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonNumEquals;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonpatch.JsonPatchMessages;
+import com.github.fge.jsonpatch.JsonPatchOperation;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streaming JSON "diff" implementation
+ *
+ * <p>Unlike {@link JsonDiff}, this class does not need both values to be
+ * loaded in memory: it reads them from two {@link JsonParser}s in lockstep,
+ * and writes the patch (as a JSON array of operations) to a {@link
+ * JsonGenerator} as it goes.</p>
+ *
+ * <p>Objects or arrays found at the same place in both values are compared
+ * while they are read, and are never loaded as a whole:</p>
+ *
+ * <ul>
+ *     <li>object members are read in order; if both members have the same
+ *     name and both values are objects, or both arrays, they are compared in
+ *     the same way, otherwise they are loaded and compared once the end of
+ *     the objects is reached;</li>
+ *     <li>array elements are loaded one at a time; as long as elements are
+ *     paired (see below), each pair is compared and then discarded. When they
+ *     are not, elements are kept until an element of one array can be paired
+ *     with one element of the other, and the two slices are then compared as
+ *     {@link JsonDiff} would.</li>
+ * </ul>
+ *
+ * <p>Two elements are paired if they have the same identity attributes, or
+ * if they are equal when no identity attributes are defined for the array.
+ * As a consequence, memory use is bounded by the size of the largest region
+ * where both values differ, and not by the size of the values.</p>
+ *
+ * <p>The price to pay is that arrays are only aligned locally, and that
+ * removals and additions are only factored into moves or copies within such a
+ * region. Also, operations which are written along with the object they
+ * apply to (the original value of a replacement, the value of an addition,
+ * and the context of a removal) only get what was loaded of this object:
+ * members which were compared while reading are left out. For instance,
+ * adding a member to an object whose other members are all objects is
+ * written with an empty object as its value, where {@link JsonDiff} writes
+ * the whole source object.</p>
+ *
+ * @since 1.13
+ */
+@ParametersAreNonnullByDefault
+public final class StreamingJsonDiff
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+    private static final ObjectWriter WRITER
+        = MAPPER.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+
+    private static final JsonNumEquals EQUIVALENCE
+        = JsonNumEquals.getInstance();
+
+    private final JsonParser source;
+    private final JsonParser target;
+    private final JsonGenerator generator;
+    private final ArrayMatcher matcher;
+
+    private StreamingJsonDiff(final JsonParser source, final JsonParser target,
+        final JsonGenerator generator, final ArrayMatcher matcher)
+    {
+        this.source = source;
+        this.target = target;
+        this.generator = generator;
+        this.matcher = matcher;
+    }
+
+    /**
+     * Write a JSON patch for transforming the source value into the target
+     * value
+     *
+     * <p>Both parsers are read up to the end of the first value they contain;
+     * neither the parsers nor the generator are closed.</p>
+     *
+     * @param source the parser for the value to be patched
+     * @param target the parser for the expected result after applying the
+     * patch
+     * @param generator the generator to write the patch to
+     * @param map checking attributes; for the array at each pointer, these
+     * attributes also identify elements when pairing source and target
+     * elements
+     * @throws IOException failed to read either value, or to write the patch
+     */
+    public static void diff(final JsonParser source, final JsonParser target,
+        final JsonGenerator generator, final Map<JsonPointer, Set<String>> map)
+        throws IOException
+    {
+        BUNDLE.checkNotNull(source, "common.nullArgument");
+        BUNDLE.checkNotNull(target, "common.nullArgument");
+        BUNDLE.checkNotNull(generator, "common.nullArgument");
+        BUNDLE.checkNotNull(map, "common.nullArgument");
+
+        final StreamingJsonDiff diff = new StreamingJsonDiff(source, target,
+            generator, ArrayMatcher.of(map));
+
+        start(source);
+        start(target);
+        generator.writeStartArray();
+        diff.diffValues(JsonPointer.empty());
+        generator.writeEndArray();
+        generator.flush();
+    }
+
+    private static void start(final JsonParser parser)
+        throws IOException
+    {
+        if (!parser.hasCurrentToken() && parser.nextToken() == null)
+            throw new JsonParseException(parser,
+                BUNDLE.getMessage("jsonPatch.nullInput"));
+    }
+
+    /*
+     * Both parsers are on the first token of a value
+     */
+    private void diffValues(final JsonPointer pointer)
+        throws IOException
+    {
+        final JsonToken first = source.getCurrentToken();
+
+        if (first == target.getCurrentToken()) {
+            if (first == JsonToken.START_OBJECT) {
+                diffObjects(pointer);
+                return;
+            }
+            if (first == JsonToken.START_ARRAY) {
+                diffArrays(pointer);
+                return;
+            }
+        }
+
+        final JsonNode sourceValue = MAPPER.readTree(source);
+        final JsonNode targetValue = MAPPER.readTree(target);
+        final DiffProcessor processor = new DiffProcessor();
+
+        JsonDiff.generateDiffs(processor, matcher, pointer, sourceValue,
+            targetValue, sourceValue);
+        write(processor);
+    }
+
+    private void diffObjects(final JsonPointer pointer)
+        throws IOException
+    {
+        /*
+         * Members which are not compared while reading
+         */
+        final ObjectNode first = FACTORY.objectNode();
+        final ObjectNode second = FACTORY.objectNode();
+
+        String firstName = nextMember(source);
+        String secondName = nextMember(target);
+
+        while (firstName != null || secondName != null) {
+            if (firstName != null && firstName.equals(secondName)) {
+                source.nextToken();
+                target.nextToken();
+                if (sameContainers())
+                    diffValues(pointer.append(firstName));
+                else {
+                    first.set(firstName, MAPPER.<JsonNode>readTree(source));
+                    second.set(secondName, MAPPER.<JsonNode>readTree(target));
+                }
+            } else {
+                if (firstName != null) {
+                    source.nextToken();
+                    first.set(firstName, MAPPER.<JsonNode>readTree(source));
+                }
+                if (secondName != null) {
+                    target.nextToken();
+                    second.set(secondName, MAPPER.<JsonNode>readTree(target));
+                }
+            }
+            if (firstName != null)
+                firstName = nextMember(source);
+            if (secondName != null)
+                secondName = nextMember(target);
+        }
+
+        if (first.size() == 0 && second.size() == 0)
+            return;
+
+        final DiffProcessor processor = new DiffProcessor();
+
+        JsonDiff.generateDiffs(processor, matcher, pointer, first, second,
+            first);
+        write(processor);
+    }
+
+    /*
+     * Returns the name of the next member, or null at the end of the object
+     */
+    private static String nextMember(final JsonParser parser)
+        throws IOException
+    {
+        return parser.nextToken() == JsonToken.FIELD_NAME
+            ? parser.getCurrentName() : null;
+    }
+
+    private boolean sameContainers()
+    {
+        final JsonToken token = source.getCurrentToken();
+
+        return token == target.getCurrentToken()
+            && (token == JsonToken.START_OBJECT
+            || token == JsonToken.START_ARRAY);
+    }
+
+    private void diffArrays(final JsonPointer pointer)
+        throws IOException
+    {
+        final Window first = new Window();
+        final Window second = new Window();
+
+        boolean firstOpen = true;
+        boolean secondOpen = true;
+
+        while (firstOpen || secondOpen) {
+            if (firstOpen)
+                firstOpen = readElement(pointer, source, first);
+            if (secondOpen)
+                secondOpen = readElement(pointer, target, second);
+            synchronize(pointer, first, second);
+        }
+
+        diffSlices(pointer, first, first.size(), second, second.size());
+    }
+
+    private boolean readElement(final JsonPointer pointer,
+        final JsonParser parser, final Window window)
+        throws IOException
+    {
+        if (parser.nextToken() == JsonToken.END_ARRAY)
+            return false;
+
+        final JsonNode element = MAPPER.readTree(parser);
+
+        window.add(element, matcher.keyOf(pointer, element));
+        return true;
+    }
+
+    /*
+     * Only the last element of either window may be paired with an element of
+     * the other window: all other elements have been checked already when
+     * they were read.
+     */
+    private void synchronize(final JsonPointer pointer, final Window first,
+        final Window second)
+        throws IOException
+    {
+        int firstCount, secondCount, found;
+
+        while (true) {
+            firstCount = -1;
+            secondCount = -1;
+
+            if (first.size() > 0) {
+                found = second.find(first.lastKey());
+                if (found != -1) {
+                    firstCount = first.size();
+                    secondCount = found + 1;
+                }
+            }
+
+            if (second.size() > 0) {
+                found = first.find(second.lastKey());
+                if (found != -1 && (firstCount == -1
+                    || found + 1 + second.size() < firstCount + secondCount)) {
+                    firstCount = found + 1;
+                    secondCount = second.size();
+                }
+            }
+
+            if (firstCount == -1)
+                return;
+
+            diffSlices(pointer, first, firstCount, second, secondCount);
+        }
+    }
+
+    private void diffSlices(final JsonPointer pointer, final Window first,
+        final int firstCount, final Window second, final int secondCount)
+        throws IOException
+    {
+        final int offset = first.offset();
+        final ArrayNode sourceSlice = first.take(firstCount);
+        final ArrayNode targetSlice = second.take(secondCount);
+
+        if (firstCount == secondCount
+            && EQUIVALENCE.equivalent(sourceSlice, targetSlice))
+            return;
+
+        final DiffProcessor processor = new DiffProcessor();
+
+        JsonDiff.generateArrayDiffs(processor, matcher, pointer, sourceSlice,
+            targetSlice, offset);
+        write(processor);
+    }
+
+    private void write(final DiffProcessor processor)
+        throws IOException
+    {
+        for (final JsonPatchOperation op: processor.getPatch().getOperations())
+            WRITER.writeValue(generator, op);
+    }
+
+    /*
+     * Elements of an array read but not compared yet, with their pairing keys
+     */
+    private static final class Window
+    {
+        private final List<JsonNode> elements = new ArrayList<JsonNode>();
+        private final List<Object> keys = new ArrayList<Object>();
+
+        /*
+         * Absolute indices in the array of the elements of this window, by key
+         */
+        private final Map<Object, Deque<Integer>> indices
+            = new HashMap<Object, Deque<Integer>>();
+
+        /*
+         * Index in the array of the first element of this window
+         */
+        private int offset = 0;
+
+        private int size()
+        {
+            return elements.size();
+        }
+
+        private int offset()
+        {
+            return offset;
+        }
+
+        private void add(final JsonNode element, final Object key)
+        {
+            Deque<Integer> deque = indices.get(key);
+
+            if (deque == null) {
+                deque = new ArrayDeque<Integer>();
+                indices.put(key, deque);
+            }
+            deque.add(offset + elements.size());
+            elements.add(element);
+            keys.add(key);
+        }
+
+        private Object lastKey()
+        {
+            return keys.get(keys.size() - 1);
+        }
+
+        /*
+         * Returns the position in this window of the first element with this
+         * key, or -1 if there is none
+         */
+        private int find(final Object key)
+        {
+            final Deque<Integer> deque = indices.get(key);
+            return deque == null ? -1 : deque.getFirst() - offset;
+        }
+
+        private ArrayNode take(final int count)
+        {
+            final ArrayNode ret = FACTORY.arrayNode();
+            final List<JsonNode> taken = elements.subList(0, count);
+            final List<Object> takenKeys = keys.subList(0, count);
+
+            Deque<Integer> deque;
+
+            for (final Object key: takenKeys) {
+                deque = indices.get(key);
+                deque.removeFirst();
+                if (deque.isEmpty())
+                    indices.remove(key);
+            }
+
+            ret.addAll(taken);
+            taken.clear();
+            takenKeys.clear();
+            offset += count;
+            return ret;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonNumEquals;
+import com.github.fge.jackson.NodeType;
+
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Structural hash of a JSON value, consistent with {@link JsonNumEquals}
+ *
+ * <p>Two values which are equivalent according to {@link JsonNumEquals} always
+ * have the same hash: numbers hash by their mathematical value (so that {@code
+ * 1} and {@code 1.0} collide), and object members are combined in an order
+ * independent fashion.</p>
+ *
+ * <p>The reverse is of course not true; users of this hash must still check
+ * for equivalence when two hashes are equal.</p>
+ */
+final class StructuralHash
+{
+    private static final int NULL_HASH = 0x6e756c6c;
+    private static final int TRUE_HASH = 1231;
+    private static final int FALSE_HASH = 1237;
+
+    /*
+     * Hashes computed on demand, for values which have not been hashed
+     * beforehand
+     */
+    static final Hashes COMPUTED = new Hashes()
+    {
+        @Override
+        public boolean isPrecomputed()
+        {
+            return false;
+        }
+
+        @Override
+        public int hash(final JsonNode node)
+        {
+            return StructuralHash.hash(node, this);
+        }
+    };
+
+    private StructuralHash()
+    {
+    }
+
+    static int hash(final JsonNode node)
+    {
+        return hash(node, COMPUTED);
+    }
+
+    /*
+     * Hash of a value, given the hashes of its elements or members
+     */
+    static int hash(final JsonNode node, final Hashes children)
+    {
+        switch (NodeType.getNodeType(node)) {
+            case NULL:
+                return NULL_HASH;
+            case BOOLEAN:
+                return node.booleanValue() ? TRUE_HASH : FALSE_HASH;
+            case STRING:
+                return node.textValue().hashCode();
+            case INTEGER:
+            case NUMBER:
+                return numberHash(node);
+            case ARRAY:
+                return arrayHash(node, children);
+            case OBJECT:
+                return objectHash(node, children);
+            default:
+                return node.hashCode();
+        }
+    }
+
+    private static int numberHash(final JsonNode node)
+    {
+        /*
+         * Mathematically equal values always round to the same double; the
+         * only special case is negative zero, whose hash differs from the hash
+         * of zero.
+         */
+        double value = node.doubleValue();
+        if (value == 0.0)
+            value = 0.0;
+        final long bits = Double.doubleToLongBits(value);
+        return (int) (bits ^ (bits >>> 32));
+    }
+
+    private static int arrayHash(final JsonNode node, final Hashes children)
+    {
+        int ret = 1;
+        for (final JsonNode element: node)
+            ret = 31 * ret + children.hash(element);
+        return ret;
+    }
+
+    private static int objectHash(final JsonNode node, final Hashes children)
+    {
+        final Iterator<Map.Entry<String, JsonNode>> iterator = node.fields();
+
+        int ret = 0;
+        Map.Entry<String, JsonNode> entry;
+
+        while (iterator.hasNext()) {
+            entry = iterator.next();
+            ret += entry.getKey().hashCode()
+                ^ children.hash(entry.getValue());
+        }
+        return ret;
+    }
+
+    /*
+     * Where the hashes of values come from: either computed on demand, or
+     * looked up in the hashed trees being diffed (see HashedJsonTree)
+     */
+    interface Hashes
+    {
+        /*
+         * Whether hashes of containers are looked up rather than computed:
+         * only then is comparing the hashes of two values cheaper than
+         * comparing the values themselves
+         */
+        boolean isPrecomputed();
+
+        int hash(JsonNode node);
+    }
+}
@@ -0,0 +1,189 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jackson.jsonpointer.TokenResolver;
+import com.github.fge.jsonpatch.JsonPatchMessages;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Required attributes of array elements, compiled for validation
+ *
+ * <p>A plan is compiled from the same map as the one used by {@link
+ * JsonDiff#asJsonPatch(JsonNode, JsonNode, Map)}: for the array at each
+ * pointer, all elements must have all of the given attributes (ie, be objects
+ * with members of these names).</p>
+ *
+ * <p>Pointers are compiled into a tree of reference tokens, so that validating
+ * a value walks it once, whatever the number of pointers; each array is then
+ * checked against its list of attributes. A pointer which does not lead to an
+ * array has no elements, and therefore no violations.</p>
+ *
+ * <p>Plans are immutable, and can be used to validate any number of values.
+ * </p>
+ *
+ * @since 1.13
+ */
+@ParametersAreNonnullByDefault
+public final class ValidationPlan
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+
+    private static final ValidationPlan EMPTY
+        = new ValidationPlan(new Step(JsonPointer.empty()));
+
+    private final Step root;
+
+    private ValidationPlan(final Step root)
+    {
+        this.root = root;
+    }
+
+    /**
+     * Compile a plan
+     *
+     * @param map required attributes of the elements of the array at each
+     * pointer
+     * @return a plan
+     */
+    public static ValidationPlan compile(
+        final Map<JsonPointer, Set<String>> map)
+    {
+        BUNDLE.checkNotNull(map, "common.nullArgument");
+
+        if (map.isEmpty())
+            return EMPTY;
+
+        final Step root = new Step(JsonPointer.empty());
+
+        Step step;
+
+        for (final Map.Entry<JsonPointer, Set<String>> entry: map.entrySet()) {
+            step = root;
+            for (final TokenResolver<JsonNode> token: entry.getKey())
+                step = step.child(token);
+            step.require(entry.getValue());
+        }
+        return new ValidationPlan(root);
+    }
+
+    /**
+     * Validate a value
+     *
+     * @param node the value
+     * @return the result of the validation
+     */
+    public ValidationResult validate(final JsonNode node)
+    {
+        BUNDLE.checkNotNull(node, "common.nullArgument");
+
+        final List<ValidationResult.Violation> violations
+            = new ArrayList<ValidationResult.Violation>();
+
+        root.validate(node, violations);
+        return new ValidationResult(violations);
+    }
+
+    private static final class Step
+    {
+        private final JsonPointer pointer;
+        private final Map<TokenResolver<JsonNode>, Step> children
+            = new LinkedHashMap<TokenResolver<JsonNode>, Step>();
+
+        /*
+         * Required attributes of elements, if the value at this step is an
+         * array to check
+         */
+        private String[] attributes = null;
+
+        private Step(final JsonPointer pointer)
+        {
+            this.pointer = pointer;
+        }
+
+        private Step child(final TokenResolver<JsonNode> token)
+        {
+            Step ret = children.get(token);
+            if (ret == null) {
+                ret = new Step(pointer.append(token.getToken().getRaw()));
+                children.put(token, ret);
+            }
+            return ret;
+        }
+
+        private void require(final Set<String> required)
+        {
+            attributes = required.toArray(new String[required.size()]);
+        }
+
+        private void validate(final JsonNode node,
+            final List<ValidationResult.Violation> violations)
+        {
+            if (attributes != null && node.isArray())
+                validateElements(node, violations);
+
+            JsonNode child;
+
+            for (final Map.Entry<TokenResolver<JsonNode>, Step> entry:
+                children.entrySet()) {
+                child = entry.getKey().get(node);
+                if (child != null)
+                    entry.getValue().validate(child, violations);
+            }
+        }
+
+        private void validateElements(final JsonNode array,
+            final List<ValidationResult.Violation> violations)
+        {
+            final int size = array.size();
+
+            JsonNode element;
+            Set<String> missing;
+
+            for (int index = 0; index < size; index++) {
+                element = array.get(index);
+                missing = null;
+                for (final String attribute: attributes) {
+                    if (element.get(attribute) != null)
+                        continue;
+                    if (missing == null)
+                        missing = new LinkedHashSet<String>();
+                    missing.add(attribute);
+                }
+                if (missing != null)
+                    violations.add(new ValidationResult.Violation(
+                        pointer.append(index), missing));
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+
+import javax.annotation.ParametersAreNonnullByDefault;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Result of the validation of a value against a {@link ValidationPlan}
+ *
+ * @since 1.13
+ */
+@ParametersAreNonnullByDefault
+public final class ValidationResult
+{
+    private final List<Violation> violations;
+
+    ValidationResult(final List<Violation> violations)
+    {
+        this.violations = Collections.unmodifiableList(violations);
+    }
+
+    /**
+     * Tell whether all array elements have all their required attributes
+     *
+     * @return true if there are no violations
+     */
+    public boolean isValid()
+    {
+        return violations.isEmpty();
+    }
+
+    /**
+     * Return all violations, in the order elements were validated
+     *
+     * @return an unmodifiable list of violations
+     */
+    public List<Violation> getViolations()
+    {
+        return violations;
+    }
+
+    @Override
+    public String toString()
+    {
+        return violations.toString();
+    }
+
+    /**
+     * An array element missing some of its required attributes
+     */
+    public static final class Violation
+    {
+        private final JsonPointer pointer;
+        private final Set<String> missing;
+
+        Violation(final JsonPointer pointer, final Set<String> missing)
+        {
+            this.pointer = pointer;
+            this.missing = Collections.unmodifiableSet(missing);
+        }
+
+        /**
+         * Return the pointer to the element
+         *
+         * @return the pointer
+         */
+        public JsonPointer getPointer()
+        {
+            return pointer;
+        }
+
+        /**
+         * Return the attributes the element is missing
+         *
+         * @return an unmodifiable set of attribute names
+         */
+        public Set<String> getMissing()
+        {
+            return missing;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "\"" + pointer + "\": " + missing;
+        }
+    }
+}
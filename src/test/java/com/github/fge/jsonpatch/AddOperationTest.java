@@ -19,8 +19,15 @@
 
 package com.github.fge.jsonpatch;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import org.testng.annotations.Test;
+
 import java.io.IOException;
 
+import static org.testng.Assert.*;
+
 public final class AddOperationTest
     extends JsonPatchOperationTest
 {
@@ -29,4 +36,19 @@ public final class AddOperationTest
     {
         super("add");
     }
+
+    @Test
+    public void valueIsNotCopiedByOperationButByPatchedValue()
+        throws IOException, JsonPatchException
+    {
+        final JsonNode value = JsonLoader.fromString("{ \"b\": [ 1 ] }");
+        final AddOperation op = new AddOperation(JsonPointer.of("a"), value);
+
+        assertSame(op.getValue(), value);
+
+        final JsonNode actual = op.apply(JsonLoader.fromString("{}"));
+
+        assertEquals(actual.get("a"), value);
+        assertNotSame(actual.get("a"), value);
+    }
 }
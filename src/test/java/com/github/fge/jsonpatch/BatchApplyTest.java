@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public final class BatchApplyTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+
+    private static final int SIZE = 200;
+
+    private final JsonPatch patch;
+    private final List<JsonNode> nodes = Lists.newArrayList();
+
+    public BatchApplyTest()
+        throws IOException
+    {
+        patch = JsonPatch.fromJson(JsonLoader.fromString("["
+            + "{ \"op\": \"test\", \"path\": \"/kind\", \"value\": \"role\" },"
+            + "{ \"op\": \"add\", \"path\": \"/Entitlements/-\","
+            + " \"value\": { \"Application Key\": \"X\" } }"
+            + "]"));
+
+        /*
+         * One value in ten is not a role, and the patch fails on it
+         */
+        for (int index = 0; index < SIZE; index++)
+            nodes.add(JsonLoader.fromString("{ \"kind\": \""
+                + (index % 10 == 3 ? "group" : "role") + "\", \"id\": "
+                + index + ", \"Entitlements\": [] }"));
+    }
+
+    @DataProvider
+    public Iterator<Object[]> getExecutors()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        list.add(new Object[] { PatchExecutors.platformThreads() });
+        list.add(new Object[] { PatchExecutors.platformThreads(1) });
+        if (PatchExecutors.hasVirtualThreads())
+            list.add(new Object[] { PatchExecutors.virtualThreads() });
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getExecutors")
+    public void failuresAreRecordedWithoutStoppingOtherValues(
+        final ExecutorService executor)
+        throws IOException, InterruptedException, JsonPatchException
+    {
+        final BatchResult result;
+
+        try {
+            result = patch.applyAll(nodes, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(result.size(), SIZE);
+        assertFalse(result.isSuccessful());
+        assertEquals(result.getFailures().size(), SIZE / 10);
+
+        for (int index = 0; index < SIZE; index++) {
+            if (index % 10 == 3) {
+                assertNull(result.getResult(index));
+                assertEquals(result.getFailure(index).getMessage(),
+                    BUNDLE.getMessage("jsonPatch.valueTestFailure"));
+                continue;
+            }
+            assertNull(result.getFailure(index));
+            assertEquals(result.getResult(index),
+                patch.apply(nodes.get(index)));
+            assertEquals(nodes.get(index).get("Entitlements").size(), 0);
+        }
+    }
+
+    @Test
+    public void valuesAreModifiedInMutateMode()
+        throws IOException, InterruptedException
+    {
+        final JsonNode node = JsonLoader.fromString(
+            "{ \"kind\": \"role\", \"Entitlements\": [] }");
+        final ExecutorService executor = PatchExecutors.platformThreads(2);
+        final BatchResult result;
+
+        try {
+            result = patch.compile().applyAll(Arrays.asList(node),
+                ApplyMode.MUTATE, executor);
+        } finally {
+            executor.shutdown();
+        }
+
+        assertTrue(result.isSuccessful());
+        assertSame(result.getResult(0), node);
+        assertEquals(node.get("Entitlements").size(), 1);
+    }
+
+    @Test
+    public void rejectedValuesStopTheBatch()
+        throws InterruptedException
+    {
+        final AtomicInteger applied = new AtomicInteger();
+        final Executor executor = new Executor()
+        {
+            @Override
+            public void execute(final Runnable command)
+            {
+                if (applied.get() == 2)
+                    throw new RejectedExecutionException();
+                command.run();
+                applied.incrementAndGet();
+            }
+        };
+
+        try {
+            patch.applyAll(nodes, executor);
+            fail("No exception thrown!!");
+        } catch (RejectedExecutionException ignored) {
+            assertEquals(applied.get(), 2);
+        }
+    }
+
+    @Test
+    public void nullValuesAreRejected()
+        throws InterruptedException
+    {
+        try {
+            patch.applyAll(Arrays.asList(nodes.get(0), null), new Executor()
+            {
+                @Override
+                public void execute(final Runnable command)
+                {
+                    command.run();
+                }
+            });
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(), BUNDLE.getMessage(
+                "jsonPatch.nullInput"));
+        }
+    }
+
+    @Test
+    public void virtualThreadsRequireJava21()
+    {
+        if (PatchExecutors.hasVirtualThreads()) {
+            PatchExecutors.virtualThreads().shutdown();
+            return;
+        }
+
+        try {
+            PatchExecutors.virtualThreads();
+            fail("No exception thrown!!");
+        } catch (UnsupportedOperationException e) {
+            assertEquals(e.getMessage(), BUNDLE.getMessage(
+                "jsonPatch.noVirtualThreads"));
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jackson.jsonpointer.JsonPointerException;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public final class CompiledPointerTest
+{
+    private final JsonNode node;
+
+    public CompiledPointerTest()
+        throws IOException
+    {
+        node = JsonLoader.fromString("{ \"a\": [ 1, { \"b\": 2 }, 3 ],"
+            + " \"\": { \"c/d\": 4, \"e~f\": 5, \"01\": 6, \"-\": 7 },"
+            + " \"g\": null }");
+    }
+
+    @DataProvider
+    public Iterator<Object[]> getPointers()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        for (final String pointer: new String[] { "", "/a", "/a/0", "/a/1/b",
+            "/a/3", "/a/-", "/a/01", "/a/+1", "/a/-1", "/a/x", "/a/0/b",
+            "/", "/~1", "//c~1d", "//e~0f", "//01", "//-", "/g", "/g/0",
+            "/h", "/h/i" })
+            list.add(new Object[] { pointer });
+
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getPointers")
+    public void compiledPointerResolvesLikeJsonPointer(final String input)
+        throws JsonPointerException
+    {
+        final JsonPointer pointer = new JsonPointer(input);
+        final CompiledPointer compiled = CompiledPointer.of(pointer);
+
+        assertSame(compiled.get(node), pointer.get(node));
+        if (pointer.isEmpty())
+            return;
+        assertSame(compiled.getParent(node), pointer.parent().get(node));
+    }
+
+    @Test
+    public void insertIndicesAreParsed()
+        throws JsonPointerException
+    {
+        assertEquals(insertIndex("/a/-"), CompiledPointer.APPEND);
+        assertEquals(insertIndex("/a/x"), CompiledPointer.NOT_AN_INDEX);
+        assertEquals(insertIndex("/a/-2"), CompiledPointer.NEGATIVE_INDEX);
+        assertEquals(insertIndex("/a/01"), 1);
+        assertEquals(insertIndex("/a/3"), 3);
+    }
+
+    private static int insertIndex(final String input)
+        throws JsonPointerException
+    {
+        return CompiledPointer.of(new JsonPointer(input)).insertIndex();
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonpatch.diff.JsonDiff;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public final class ContextProjectionTest
+{
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+
+    private static final Map<JsonPointer, Set<String>> IDENTITIES
+        = ImmutableMap.<JsonPointer, Set<String>>of(
+            JsonPointer.of("Entitlements"), ImmutableSet.of("Application Key",
+                "Entitlement Type", "Entitlement Name"));
+
+    private final JsonNode role;
+    private final JsonNode target;
+
+    public ContextProjectionTest()
+        throws IOException
+    {
+        role = JsonLoader.fromResource("/jsonpatch/diff/confluxsys.json");
+        target = role.deepCopy();
+        ((ArrayNode) target.get("Entitlements")).remove(2);
+    }
+
+    @Test
+    public void removalsWriteEntitlementIdentityByDefault()
+        throws IOException
+    {
+        final JsonNode patch = MAPPER.valueToTree(
+            JsonDiff.asJsonPatch(role, target, IDENTITIES));
+        final JsonNode expected = JsonLoader.fromString("{"
+            + "\"Application Key\": \"100\","
+            + "\"Entitlement Type\": \"UD_GROUPS_GROUPS\","
+            + "\"Entitlement Name\": \"565~Deployment Owners\""
+            + "}");
+
+        assertEquals(patch.size(), 1);
+        assertEquals(patch.get(0).get("op").textValue(), "remove");
+        assertEquals(patch.get(0).get("original_value "), expected);
+    }
+
+    @Test
+    public void removalsWriteConfiguredFields()
+        throws IOException
+    {
+        final ContextProjection projection
+            = ContextProjection.of("Entitlement Key", "Application Key");
+        final JsonNode patch = MAPPER.valueToTree(
+            JsonDiff.asJsonPatch(role, target, IDENTITIES, projection));
+        final JsonNode expected = JsonLoader.fromString("{"
+            + "\"Entitlement Key\": \"askjdhfiegig02k\","
+            + "\"Application Key\": \"100\""
+            + "}");
+
+        assertEquals(patch.get(0).get("original_value "), expected);
+    }
+
+    @Test
+    public void missingFieldsAreWrittenAsNullText()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString("[ { \"a\": 1 } ]");
+        final JsonPatchOperation op = new RemoveOperation(JsonPointer.of(0),
+            source.get(0), ContextProjection.of("a", "b"));
+        final ObjectNode context
+            = (ObjectNode) MAPPER.valueToTree(op).get("original_value ");
+
+        assertEquals(context.get("a").textValue(), "1");
+        assertEquals(context.get("b").textValue(), "null");
+    }
+}
@@ -90,6 +90,21 @@ public abstract class JsonPatchOperationTest
         }
     }
 
+    @Test(dataProvider = "getErrors")
+    public final void errorsAreCorrectlyReportedWithSharing(
+        final JsonNode patch, final JsonNode node, final String message)
+        throws IOException
+    {
+        final InPlaceOperation op = reader.readValue(patch);
+
+        try {
+            op.applySharing(node);
+            fail("No exception thrown!!");
+        } catch (JsonPatchException e) {
+            assertEquals(e.getMessage(), message);
+        }
+    }
+
     @DataProvider
     public final Iterator<Object[]> getOps()
     {
@@ -116,9 +131,28 @@ public abstract class JsonPatchOperationTest
         assertTrue(EQUIVALENCE.equivalent(actual, expected),
             "patched node differs from expectations: expected " + expected
             + " but found " + actual);
-        if (EQUIVALENCE.equivalent(node, actual) && node.isContainerNode())
+        if (op instanceof InPlaceOperation
+            && ((InPlaceOperation) op).isReadOnly())
+            assertSame(actual, node,
+                "read only operation made a copy of the input node");
+        else if (EQUIVALENCE.equivalent(node, actual)
+            && node.isContainerNode())
             assertNotSame(node, actual,
                 "operation didn't make a copy of the input node");
     }
-}
 
+    @Test(dataProvider = "getOps")
+    public final void sharingOperationsLeaveInputUntouched(
+        final JsonNode patch, final JsonNode node, final JsonNode expected)
+        throws IOException, JsonPatchException
+    {
+        final InPlaceOperation op = reader.readValue(patch);
+        final JsonNode before = node.deepCopy();
+        final JsonNode actual = op.applySharing(node);
+
+        assertTrue(EQUIVALENCE.equivalent(actual, expected),
+            "patched node differs from expectations: expected " + expected
+            + " but found " + actual);
+        assertEquals(node, before, "operation modified the input node");
+    }
+}
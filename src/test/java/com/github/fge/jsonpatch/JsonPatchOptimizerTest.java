@@ -0,0 +1,249 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.testng.Assert.*;
+
+/*
+ * Optimized patches are checked against the original ones on randomly
+ * generated values and patches; generated patches reuse paths often, so that
+ * there is something to optimize.
+ */
+public final class JsonPatchOptimizerTest
+{
+    private static final JsonNodeFactory FACTORY = JacksonUtils.nodeFactory();
+    private static final String[] NAMES = { "a", "b", "c", "d/e", "f~g" };
+    private static final int RUNS = 500;
+
+    @Test
+    public void replacementsOfTheSameValueAreMerged()
+        throws IOException, JsonPatchException
+    {
+        final JsonPatch patch = patch("["
+            + "{\"op\":\"replace\",\"path\":\"/a\",\"value\":1},"
+            + "{\"op\":\"add\",\"path\":\"/b\",\"value\":2},"
+            + "{\"op\":\"replace\",\"path\":\"/a\",\"value\":3}"
+            + "]");
+        final JsonPatch optimized = JsonPatchOptimizer.optimize(patch);
+
+        assertEquals(optimized.getOperations().size(), 2);
+        assertEquals(optimized.toString(), patch("["
+            + "{\"op\":\"replace\",\"path\":\"/a\",\"value\":3},"
+            + "{\"op\":\"add\",\"path\":\"/b\",\"value\":2}"
+            + "]").toString());
+    }
+
+    @Test
+    public void operationsAreNotMergedAcrossRelatedOperations()
+        throws IOException
+    {
+        final JsonPatch patch = patch("["
+            + "{\"op\":\"replace\",\"path\":\"/a/0\",\"value\":1},"
+            + "{\"op\":\"remove\",\"path\":\"/a/1\"},"
+            + "{\"op\":\"replace\",\"path\":\"/a/0\",\"value\":3}"
+            + "]");
+
+        assertSame(JsonPatchOptimizer.optimize(patch), patch);
+    }
+
+    @Test
+    public void removalAddAndRemovalAreReducedToRemoval()
+        throws IOException
+    {
+        final JsonPatch patch = patch("["
+            + "{\"op\":\"remove\",\"path\":\"/a\"},"
+            + "{\"op\":\"add\",\"path\":\"/a\",\"value\":1},"
+            + "{\"op\":\"remove\",\"path\":\"/a\"},"
+            + "{\"op\":\"move\",\"from\":\"/b\",\"path\":\"/b\"}"
+            + "]");
+        final JsonPatch optimized = JsonPatchOptimizer.optimize(patch);
+
+        assertEquals(optimized.toString(),
+            patch("[{\"op\":\"remove\",\"path\":\"/a\"}]").toString());
+    }
+
+    @DataProvider
+    public Iterator<Object[]> getRandomPatches()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        for (int seed = 0; seed < RUNS; seed++)
+            list.add(new Object[] { seed });
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getRandomPatches")
+    public void optimizedPatchGivesTheSameResult(final int seed)
+        throws JsonPatchException
+    {
+        final Random random = new Random(seed);
+        final JsonNode node = value(random, 3);
+        final JsonPatch patch = randomPatch(random, node);
+        final JsonPatch optimized = JsonPatchOptimizer.optimize(patch);
+
+        assertTrue(optimized.getOperations().size()
+            <= patch.getOperations().size());
+        assertEquals(optimized.apply(node), patch.apply(node),
+            "seed " + seed + ", patch " + patch + ", optimized " + optimized);
+    }
+
+    private static JsonPatch patch(final String input)
+        throws IOException
+    {
+        return JsonPatch.fromJson(JsonLoader.fromString(input));
+    }
+
+    private static JsonNode value(final Random random, final int depth)
+    {
+        final int kind = random.nextInt(depth == 0 ? 2 : 4);
+
+        switch (kind) {
+            case 0:
+                return FACTORY.numberNode(random.nextInt(4));
+            case 1:
+                return FACTORY.textNode(NAMES[random.nextInt(NAMES.length)]);
+            case 2:
+                final ArrayNode array = FACTORY.arrayNode();
+                for (int i = random.nextInt(4); i > 0; i--)
+                    array.add(value(random, depth - 1));
+                return array;
+            default:
+                final ObjectNode object = FACTORY.objectNode();
+                for (int i = random.nextInt(4); i > 0; i--)
+                    object.set(NAMES[random.nextInt(NAMES.length)],
+                        value(random, depth - 1));
+                return object;
+        }
+    }
+
+    /*
+     * Generate operations one at a time, only keeping those which apply to
+     * the value patched so far
+     */
+    private static JsonPatch randomPatch(final Random random,
+        final JsonNode node)
+    {
+        final List<JsonPatchOperation> ops = Lists.newArrayList();
+        final int size = 1 + random.nextInt(12);
+
+        JsonNode current = node;
+        JsonPointer last = JsonPointer.empty();
+        JsonPatchOperation op;
+
+        for (int attempt = 0; ops.size() < size && attempt < 100; attempt++) {
+            final List<JsonPointer> pointers = Lists.newArrayList();
+            collect(current, JsonPointer.empty(), pointers);
+            final JsonPointer path = random.nextInt(3) == 0 ? last
+                : target(random, current, pointers);
+            final JsonPointer from
+                = pointers.get(random.nextInt(pointers.size()));
+            op = operation(random, current, path, from);
+            try {
+                current = op.apply(current);
+            } catch (JsonPatchException ignored) {
+                continue;
+            }
+            ops.add(op);
+            last = path;
+        }
+        return new JsonPatch(ops);
+    }
+
+    private static JsonPatchOperation operation(final Random random,
+        final JsonNode node, final JsonPointer path, final JsonPointer from)
+    {
+        switch (random.nextInt(7)) {
+            case 0:
+                return new AddOperation(path, value(random, 1));
+            case 1:
+                return new RemoveOperation(path, null);
+            case 2:
+            case 3:
+                return new ReplaceOperation(path, value(random, 1));
+            case 4:
+                return new CopyOperation(from, path, null);
+            case 5:
+                return new MoveOperation(random.nextBoolean() ? path : from,
+                    path, null);
+            default:
+                final JsonNode value = path.path(node);
+                return new TestOperation(path, value.isMissingNode()
+                    ? FACTORY.nullNode() : value);
+        }
+    }
+
+    /*
+     * An existing value, a new member of an existing object, or the end of an
+     * existing array
+     */
+    private static JsonPointer target(final Random random, final JsonNode node,
+        final List<JsonPointer> pointers)
+    {
+        final JsonPointer pointer
+            = pointers.get(random.nextInt(pointers.size()));
+        final JsonNode value = pointer.path(node);
+
+        if (random.nextBoolean())
+            return pointer;
+        if (value.isObject())
+            return pointer.append(NAMES[random.nextInt(NAMES.length)]);
+        if (value.isArray())
+            return pointer.append(random.nextBoolean() ? "-"
+                : Integer.toString(random.nextInt(value.size() + 1)));
+        return pointer;
+    }
+
+    private static void collect(final JsonNode node, final JsonPointer pointer,
+        final List<JsonPointer> pointers)
+    {
+        pointers.add(pointer);
+        if (node.isArray())
+            for (int index = 0; index < node.size(); index++)
+                collect(node.get(index), pointer.append(index), pointers);
+        if (!node.isObject())
+            return;
+
+        final Iterator<Map.Entry<String, JsonNode>> members = node.fields();
+        Map.Entry<String, JsonNode> member;
+
+        while (members.hasNext()) {
+            member = members.next();
+            collect(member.getValue(), pointer.append(member.getKey()),
+                pointers);
+        }
+    }
+}
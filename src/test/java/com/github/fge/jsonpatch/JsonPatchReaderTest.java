@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.RuntimeJsonMappingException;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public final class JsonPatchReaderTest
+{
+    private static final JsonFactory FACTORY
+        = JacksonUtils.newMapper().getFactory();
+
+    private final JsonNode testNode;
+
+    public JsonPatchReaderTest()
+        throws IOException
+    {
+        testNode = JsonLoader.fromResource("/jsonpatch/testsuite.json");
+    }
+
+    @DataProvider
+    public Iterator<Object[]> getPatches()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        for (final JsonNode element: testNode)
+            if (element.has("patch"))
+                list.add(new Object[] { element.get("patch") });
+
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getPatches")
+    public void operationsAreTheSameAsFromTree(final JsonNode node)
+        throws IOException
+    {
+        final JsonPatch expected = JsonPatch.fromJson(node);
+        final JsonPatchReader reader = reader(node.toString());
+        final List<String> actual = Lists.newArrayList();
+
+        while (reader.hasNext())
+            actual.add(reader.next().toString());
+
+        assertEquals(actual.toString(), expected.toString());
+    }
+
+    @Test
+    public void membersCanBeInAnyOrderAndUnknownOnesAreIgnored()
+        throws IOException
+    {
+        final JsonPatchReader reader = reader("[ { \"value\": { \"x\": [ 1 ] },"
+            + " \"extra\": { \"op\": \"remove\" }, \"path\": \"/a\","
+            + " \"op\": \"add\" }, { \"from\": \"/a\", \"path\": \"/b\","
+            + " \"op\": \"move\" } ]");
+
+        final JsonPatchOperation first = reader.nextOperation();
+        final JsonPatchOperation second = reader.nextOperation();
+
+        assertFalse(reader.hasNextOperation());
+        assertSame(first.getClass(), AddOperation.class);
+        assertEquals(((AddOperation) first).getValue(),
+            JsonLoader.fromString("{ \"x\": [ 1 ] }"));
+        assertSame(second.getClass(), MoveOperation.class);
+        assertEquals(((MoveOperation) second).getFrom().toString(), "/a");
+    }
+
+    @Test
+    public void operationsAreReadOneAtATime()
+        throws IOException
+    {
+        final JsonPatchReader reader = reader("[ { \"op\": \"remove\","
+            + " \"path\": \"/a\" }, { \"op\": \"frobnicate\", \"path\": \"\" }"
+            + " ]");
+
+        assertEquals(reader.nextOperation().getPath().toString(), "/a");
+        try {
+            reader.nextOperation();
+            fail("No exception thrown!!");
+        } catch (JsonMappingException e) {
+            assertTrue(e.getMessage().contains("frobnicate"));
+        }
+    }
+
+    @Test
+    public void invalidOperationsAreReported()
+        throws IOException
+    {
+        final String[] inputs = {
+            "[ { \"path\": \"/a\" } ]",
+            "[ { \"op\": \"add\", \"path\": \"/a\" } ]",
+            "[ { \"op\": \"copy\", \"path\": \"/a\" } ]",
+            "[ { \"op\": \"remove\", \"path\": 1 } ]",
+            "[ { \"op\": \"remove\", \"path\": \"a\" } ]",
+            "[ 1 ]"
+        };
+
+        for (final String input: inputs)
+            try {
+                reader(input).next();
+                fail("No exception thrown!! input: " + input);
+            } catch (RuntimeJsonMappingException ignored) {
+            }
+    }
+
+    @Test
+    public void patchMustBeAnArray()
+        throws IOException
+    {
+        try {
+            reader("{ \"op\": \"remove\", \"path\": \"/a\" }");
+            fail("No exception thrown!!");
+        } catch (JsonMappingException ignored) {
+        }
+    }
+
+    private static JsonPatchReader reader(final String input)
+        throws IOException
+    {
+        final JsonParser parser = FACTORY.createParser(input);
+        return new JsonPatchReader(parser);
+    }
+}
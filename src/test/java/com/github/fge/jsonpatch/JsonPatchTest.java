@@ -19,9 +19,13 @@
 
 package com.github.fge.jsonpatch;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonMappingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
 import com.github.fge.msgsimple.bundle.MessageBundle;
 import com.github.fge.msgsimple.load.MessageBundles;
 import com.google.common.collect.ImmutableList;
@@ -30,6 +34,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.io.IOException;
+import java.util.List;
 
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.*;
@@ -119,4 +124,187 @@ public final class JsonPatchTest
 
         verifyZeroInteractions(op2);
     }
+
+    @Test
+    public void copyModeLeavesInputUntouched()
+        throws IOException, JsonPatchException
+    {
+        final JsonNode node = JsonLoader.fromString("{ \"a\": [ 1, 2 ] }");
+        final JsonPatch patch = JsonPatch.fromJson(JsonLoader.fromString(
+            "[ { \"op\": \"add\", \"path\": \"/a/-\", \"value\": 3 } ]"));
+
+        final JsonNode actual = patch.apply(node, ApplyMode.COPY);
+
+        assertEquals(actual, JsonLoader.fromString("{ \"a\": [ 1, 2, 3 ] }"));
+        assertEquals(node, JsonLoader.fromString("{ \"a\": [ 1, 2 ] }"));
+    }
+
+    @Test
+    public void mutateModeModifiesInput()
+        throws IOException, JsonPatchException
+    {
+        final JsonNode node = JsonLoader.fromString("{ \"a\": [ 1, 2 ] }");
+        final JsonPatch patch = JsonPatch.fromJson(JsonLoader.fromString(
+            "[ { \"op\": \"add\", \"path\": \"/a/-\", \"value\": 3 } ]"));
+
+        final JsonNode actual = patch.apply(node, ApplyMode.MUTATE);
+
+        assertSame(actual, node);
+        assertEquals(node, JsonLoader.fromString("{ \"a\": [ 1, 2, 3 ] }"));
+    }
+
+    @Test
+    public void failedPatchInMutateModeIsUndone()
+        throws IOException
+    {
+        final String input = "{\"a\":1,\"b\":[1,2,3],\"c\":{\"d\":2},\"e\":3}";
+        final JsonNode node = JsonLoader.fromString(input);
+        final JsonPatch patch = JsonPatch.fromJson(JsonLoader.fromString("["
+            + "{ \"op\": \"remove\", \"path\": \"/a\" },"
+            + "{ \"op\": \"move\", \"from\": \"/b/0\", \"path\": \"/c/x\" },"
+            + "{ \"op\": \"replace\", \"path\": \"/c/d\", \"value\": 4 },"
+            + "{ \"op\": \"copy\", \"from\": \"/c\", \"path\": \"/b/1\" },"
+            + "{ \"op\": \"add\", \"path\": \"/a\", \"value\": 5 },"
+            + "{ \"op\": \"test\", \"path\": \"/e\", \"value\": 4 }"
+            + "]"));
+
+        try {
+            patch.apply(node, ApplyMode.MUTATE);
+            fail("No exception thrown!!");
+        } catch (JsonPatchException e) {
+            assertEquals(e.getMessage(), BUNDLE.getMessage(
+                "jsonPatch.valueTestFailure"));
+        }
+
+        assertEquals(node.toString(), input);
+    }
+
+    @Test
+    public void invalidStreamedPatchInMutateModeIsUndone()
+        throws IOException, JsonPatchException
+    {
+        final String input = "{\"a\":1,\"b\":[1,2,3]}";
+        final JsonNode node = JsonLoader.fromString(input);
+        final JsonParser parser = JacksonUtils.newMapper().getFactory()
+            .createParser("["
+                + "{ \"op\": \"remove\", \"path\": \"/a\" },"
+                + "{ \"op\": \"add\", \"path\": \"/b/-\", \"value\": 4 },"
+                + "{ \"op\": \"add\", \"path\": \"/c\" }"
+                + "]");
+
+        try {
+            JsonPatch.applyStreaming(parser, node, ApplyMode.MUTATE);
+            fail("No exception thrown!!");
+        } catch (JsonMappingException ignored) {
+        }
+
+        assertEquals(node.toString(), input);
+    }
+
+    @Test
+    public void valuesFromOtherOperationsAreCopiedInMutateMode()
+        throws IOException, JsonPatchException
+    {
+        final JsonNode node = JsonLoader.fromString("{ \"a\": 1 }");
+        final JsonNode node2 = FACTORY.objectNode().put("b", 2);
+        final JsonPatchOperation add = new AddOperation(JsonPointer.of("c"),
+            FACTORY.numberNode(3));
+
+        when(op1.apply(node)).thenReturn(node2);
+
+        final JsonPatch patch = new JsonPatch(ImmutableList.of(op1, add));
+
+        final JsonNode actual = patch.apply(node, ApplyMode.MUTATE);
+
+        verify(op1, only()).apply(same(node));
+        assertEquals(actual, JsonLoader.fromString("{ \"b\": 2, \"c\": 3 }"));
+        assertEquals(node2, FACTORY.objectNode().put("b", 2));
+    }
+
+    @Test
+    public void historyKeepsAllVersionsAndSharesUnmodifiedValues()
+        throws IOException, JsonPatchException
+    {
+        final JsonNode node = JsonLoader.fromString(
+            "{ \"a\": { \"b\": [ 1, 2 ] }, \"c\": { \"d\": 3 } }");
+        final JsonPatch patch = JsonPatch.fromJson(JsonLoader.fromString("["
+            + "{ \"op\": \"add\", \"path\": \"/a/b/-\", \"value\": 3 },"
+            + "{ \"op\": \"move\", \"from\": \"/a/b/0\", \"path\": \"/e\" }"
+            + "]"));
+
+        final List<JsonNode> versions = patch.applyWithHistory(node);
+
+        assertEquals(versions.size(), 3);
+        assertSame(versions.get(0), node);
+        assertEquals(versions.get(0), JsonLoader.fromString(
+            "{ \"a\": { \"b\": [ 1, 2 ] }, \"c\": { \"d\": 3 } }"));
+        assertEquals(versions.get(1), JsonLoader.fromString(
+            "{ \"a\": { \"b\": [ 1, 2, 3 ] }, \"c\": { \"d\": 3 } }"));
+        assertEquals(versions.get(2), JsonLoader.fromString(
+            "{ \"a\": { \"b\": [ 2, 3 ] }, \"c\": { \"d\": 3 }, \"e\": 1 }"));
+
+        assertSame(versions.get(1).get("c"), node.get("c"));
+        assertSame(versions.get(2).get("c"), node.get("c"));
+        assertNotSame(versions.get(2).get("a"), versions.get(1).get("a"));
+    }
+
+    @Test
+    public void valueIsOnlyCopiedByModifyingOperations()
+        throws IOException, JsonPatchException
+    {
+        final JsonNode node = JsonLoader.fromString("{ \"a\": [ 1, 2 ] }");
+        final JsonPatch tests = JsonPatch.fromJson(JsonLoader.fromString("["
+            + "{ \"op\": \"test\", \"path\": \"/a/0\", \"value\": 1 },"
+            + "{ \"op\": \"move\", \"from\": \"/a\", \"path\": \"/a\" }"
+            + "]"));
+        final JsonPatch patch = JsonPatch.fromJson(JsonLoader.fromString("["
+            + "{ \"op\": \"test\", \"path\": \"/a/0\", \"value\": 1 },"
+            + "{ \"op\": \"remove\", \"path\": \"/a/0\" }"
+            + "]"));
+
+        assertSame(tests.apply(node), node);
+
+        final JsonNode actual = patch.apply(node);
+
+        assertEquals(actual, JsonLoader.fromString("{ \"a\": [ 2 ] }"));
+        assertEquals(node, JsonLoader.fromString("{ \"a\": [ 1, 2 ] }"));
+    }
+
+    @Test
+    public void composedPatchGivesTheSameResultAsSuccessivePatches()
+        throws IOException, JsonPatchException
+    {
+        final JsonNode node = JsonLoader.fromString(
+            "{ \"a\": [ 1, 2, 3 ], \"b\": \"x\" }");
+        final JsonPatch first = JsonPatch.fromJson(JsonLoader.fromString("["
+            + "{ \"op\": \"replace\", \"path\": \"/b\", \"value\": \"y\" },"
+            + "{ \"op\": \"remove\", \"path\": \"/a/0\" }"
+            + "]"));
+        final JsonPatch second = JsonPatch.fromJson(JsonLoader.fromString("["
+            + "{ \"op\": \"move\", \"from\": \"/a/0\", \"path\": \"/c\" },"
+            + "{ \"op\": \"replace\", \"path\": \"/b\", \"value\": \"z\" }"
+            + "]"));
+        final JsonPatch third = JsonPatch.fromJson(JsonLoader.fromString("["
+            + "{ \"op\": \"add\", \"path\": \"/a/0\", \"value\": 4 },"
+            + "{ \"op\": \"replace\", \"path\": \"/b\", \"value\": 5 }"
+            + "]"));
+
+        final JsonPatch composed = JsonPatch.compose(first, second, third);
+
+        assertEquals(composed.apply(node),
+            third.apply(second.apply(first.apply(node))));
+        assertEquals(composed.getOperations().size(), 4);
+    }
+
+    @Test
+    public void cannotComposeNullPatches()
+    {
+        try {
+            JsonPatch.compose(new JsonPatch(ImmutableList.of(op1)), null);
+            fail("No exception thrown!!");
+        } catch (NullPointerException e) {
+            assertEquals(e.getMessage(), BUNDLE.getMessage(
+                "jsonPatch.nullInput"));
+        }
+    }
 }
@@ -19,12 +19,16 @@
 
 package com.github.fge.jsonpatch;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JacksonUtils;
 import com.github.fge.jackson.JsonLoader;
 import com.google.common.collect.Lists;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
@@ -82,4 +86,106 @@ public final class JsonPatchTestSuite
                 fail("Test was expected to succeed!!");
         }
     }
+
+    @Test(dataProvider = "getTests")
+    public void testsFromTestSuitePassInPlace(final JsonNode source,
+        final JsonPatch patch, final JsonNode expected, final boolean valid)
+    {
+        final JsonNode node = source.deepCopy();
+
+        try {
+            final JsonNode actual = patch.apply(node, ApplyMode.MUTATE);
+            if (!valid)
+                fail("Test was expected to fail!!");
+            assertTrue(actual.equals(expected));
+        } catch (JsonPatchException ignored) {
+            if (valid)
+                fail("Test was expected to succeed!!");
+            assertEquals(node.toString(), source.toString());
+        }
+    }
+
+    @Test(dataProvider = "getTests")
+    public void testsFromTestSuitePassWithSharing(final JsonNode source,
+        final JsonPatch patch, final JsonNode expected, final boolean valid)
+    {
+        final JsonNode before = source.deepCopy();
+
+        try {
+            final JsonNode actual = patch.apply(source, ApplyMode.SHARE);
+            if (!valid)
+                fail("Test was expected to fail!!");
+            assertTrue(actual.equals(expected));
+        } catch (JsonPatchException ignored) {
+            if (valid)
+                fail("Test was expected to succeed!!");
+        }
+        assertTrue(source.equals(before));
+    }
+
+    @Test(dataProvider = "getTests")
+    public void testsFromTestSuitePassAfterRoundTrip(final JsonNode source,
+        final JsonPatch patch, final JsonNode expected, final boolean valid)
+        throws IOException
+    {
+        ByteArrayOutputStream out;
+        JsonPatch read;
+
+        for (final PatchFormat format: PatchFormat.values()) {
+            out = new ByteArrayOutputStream();
+            patch.writeTo(out, format);
+            read = JsonPatch.readFrom(
+                new ByteArrayInputStream(out.toByteArray()), format);
+            try {
+                final JsonNode actual = read.apply(source);
+                if (!valid)
+                    fail("Test was expected to fail!! format: " + format);
+                assertTrue(actual.equals(expected));
+            } catch (JsonPatchException ignored) {
+                if (valid)
+                    fail("Test was expected to succeed!! format: " + format);
+            }
+        }
+    }
+
+    @Test(dataProvider = "getTests")
+    public void testsFromTestSuitePassWhenStreamed(final JsonNode source,
+        final JsonPatch patch, final JsonNode expected, final boolean valid)
+        throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        patch.writeTo(out, PatchFormat.JSON);
+
+        final JsonParser parser = JacksonUtils.newMapper().getFactory()
+            .createParser(out.toByteArray());
+
+        try {
+            final JsonNode actual = JsonPatch.applyStreaming(parser, source);
+            if (!valid)
+                fail("Test was expected to fail!!");
+            assertTrue(actual.equals(expected));
+        } catch (JsonPatchException ignored) {
+            if (valid)
+                fail("Test was expected to succeed!!");
+        }
+    }
+
+    @Test(dataProvider = "getTests")
+    public void testsFromTestSuitePassWhenCompiled(final JsonNode source,
+        final JsonPatch patch, final JsonNode expected, final boolean valid)
+    {
+        final JsonPatchPlan plan = patch.compile();
+
+        for (final ApplyMode mode: ApplyMode.values()) {
+            try {
+                final JsonNode actual = plan.apply(source.deepCopy(), mode);
+                if (!valid)
+                    fail("Test was expected to fail!! mode: " + mode);
+                assertTrue(actual.equals(expected));
+            } catch (JsonPatchException ignored) {
+                if (valid)
+                    fail("Test was expected to succeed!! mode: " + mode);
+            }
+        }
+    }
 }
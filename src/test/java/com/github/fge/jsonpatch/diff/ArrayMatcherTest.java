@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public final class ArrayMatcherTest
+{
+    private static final JsonPointer ENTITLEMENTS
+        = JsonPointer.of("Entitlements");
+
+    private static final Map<JsonPointer, Set<String>> IDENTITIES
+        = ImmutableMap.<JsonPointer, Set<String>>of(ENTITLEMENTS,
+            ImmutableSet.of("Application Key", "Entitlement Name"));
+
+    @DataProvider
+    public Iterator<Object[]> getValueAlignments()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        list.add(new Object[] { "[ 1, 2, 3 ]", "[ 1, 2, 3 ]", new int[] { 0, 1, 2 } });
+        list.add(new Object[] { "[ 1, 2, 3 ]", "[ 0, 1, 2, 3 ]", new int[] { 1, 2, 3 } });
+        list.add(new Object[] { "[ 1, 2, 3 ]", "[ 2, 3 ]", new int[] { -1, 0, 1 } });
+        list.add(new Object[] { "[ 1, 2, 3 ]", "[ 1, 3, 4 ]", new int[] { 0, -1, 1 } });
+        list.add(new Object[] { "[ 1, 2.0, 3 ]", "[ 2, 3 ]", new int[] { -1, 0, 1 } });
+        list.add(new Object[] { "[ 1, 2, { \"a\": 1 } ]", "[ 1, \"x\", { \"a\": 2 } ]",
+            new int[] { 0, 1, 2 } });
+        list.add(new Object[] { "[ \"a\", \"b\" ]", "[ \"b\", \"c\", \"d\" ]",
+            new int[] { -1, 0 } });
+
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getValueAlignments")
+    public void elementsAreAlignedByValueWithoutIdentities(final String source,
+        final String target, final int[] expected)
+        throws IOException
+    {
+        final int[] actual = ArrayMatcher.byValue().align(ENTITLEMENTS,
+            JsonLoader.fromString(source), JsonLoader.fromString(target));
+
+        assertEquals(actual, expected);
+    }
+
+    @Test
+    public void elementsAreAlignedByIdentity()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString("["
+            + "{ \"Application Key\": \"121\", \"Entitlement Name\": \"a\" },"
+            + "{ \"Application Key\": \"562\", \"Entitlement Name\": \"b\" },"
+            + "{ \"Application Key\": \"100\", \"Entitlement Name\": \"c\" }"
+            + "]");
+        final JsonNode target = JsonLoader.fromString("["
+            + "{ \"Application Key\": \"999\", \"Entitlement Name\": \"z\" },"
+            + "{ \"Application Key\": \"100\", \"Entitlement Name\": \"c\","
+            + "  \"Additional Info\": \"x\" },"
+            + "{ \"Application Key\": \"121\", \"Entitlement Name\": \"a\" }"
+            + "]");
+
+        final int[] actual = ArrayMatcher.of(IDENTITIES).align(ENTITLEMENTS,
+            source, target);
+
+        assertEquals(actual, new int[] { 2, -1, 1 });
+    }
+
+    @Test
+    public void elementsWithoutIdentityArePairedInOrder()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString(
+            "[ { \"Application Key\": \"121\" }, 1, 2 ]");
+        final JsonNode target = JsonLoader.fromString(
+            "[ 3, { \"Application Key\": \"121\" } ]");
+
+        final int[] actual = ArrayMatcher.of(IDENTITIES).align(ENTITLEMENTS,
+            source, target);
+
+        assertEquals(actual, new int[] { 0, 1, -1 });
+    }
+}
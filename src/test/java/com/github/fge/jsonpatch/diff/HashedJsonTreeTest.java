@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jackson.jsonpointer.JsonPointerException;
+import com.github.fge.jsonpatch.JsonPatchMessages;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public final class HashedJsonTreeTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+
+    private static final Map<JsonPointer, Set<String>> IDENTITIES
+        = ImmutableMap.<JsonPointer, Set<String>>of(
+            JsonPointer.of("Entitlements"), ImmutableSet.of("Application Key",
+                "Entitlement Type", "Entitlement Name"));
+    private static final Map<JsonPointer, Set<String>> NO_IDENTITIES
+        = Collections.emptyMap();
+
+    private final JsonNode role;
+    private final JsonNode testData;
+
+    public HashedJsonTreeTest()
+        throws IOException
+    {
+        role = JsonLoader.fromResource("/jsonpatch/diff/confluxsys.json");
+        testData = JsonLoader.fromResource("/jsonpatch/diff/diff.json");
+    }
+
+    @Test
+    public void equivalentValuesHaveTheSameHash()
+        throws IOException
+    {
+        final JsonNode first = JsonLoader.fromString(
+            "{ \"a\": 1, \"b\": [ 1.0, { \"c\": null, \"d\": \"x\" } ] }");
+        final JsonNode second = JsonLoader.fromString(
+            "{ \"b\": [ 1, { \"d\": \"x\", \"c\": null } ], \"a\": 1.00 }");
+
+        assertEquals(HashedJsonTree.of(first).getHash(),
+            HashedJsonTree.of(second).getHash());
+    }
+
+    @Test
+    public void subtreesHaveTheirStructuralHash()
+        throws JsonPointerException
+    {
+        final HashedJsonTree tree = HashedJsonTree.of(role);
+
+        JsonPointer pointer;
+
+        assertEquals(tree.getHash(), StructuralHash.hash(role));
+        for (final String input: new String[] { "", "/Entitlements",
+            "/Entitlements/0", "/Entitlements/1/Application Key",
+            "/Role ID" }) {
+            pointer = new JsonPointer(input);
+            assertEquals(tree.getHash(pointer),
+                StructuralHash.hash(pointer.get(role)), "pointer: " + input);
+        }
+    }
+
+    @Test
+    public void hashOfMissingSubtreeIsAnError()
+    {
+        try {
+            HashedJsonTree.of(role).getHash(JsonPointer.of("Nope"));
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(),
+                BUNDLE.getMessage("jsonDiff.noSuchSubtree"));
+        }
+    }
+
+    @DataProvider
+    public Iterator<Object[]> getChanges()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        ObjectNode target;
+
+        target = role.deepCopy();
+        list.add(new Object[] { "no change", role, target, IDENTITIES });
+
+        target = role.deepCopy();
+        entitlements(target).remove(1);
+        list.add(new Object[] { "removed entitlement", role, target,
+            IDENTITIES });
+
+        target = role.deepCopy();
+        entitlements(target).remove(0);
+        entitlement(target, 1).remove("Entitlement Key");
+        entitlements(target).add(entitlement(role, 0).deepCopy()
+            .put("Entitlement Name", "145~Network Security Role"));
+        target.put("Role Owner Login", "JDOE");
+        list.add(new Object[] { "several changes", role, target,
+            IDENTITIES });
+
+        /*
+         * Unchanged entitlements are the same instances in both values
+         */
+        target = role.deepCopy();
+        target.set("Entitlements", entitlements(role).deepCopy());
+        entitlements(target).set(2, entitlement(role, 2).deepCopy()
+            .put("Additional Info", "updated"));
+        for (int index = 0; index < entitlements(role).size(); index++)
+            if (index != 2)
+                entitlements(target).set(index, entitlement(role, index));
+        list.add(new Object[] { "shared subtrees", role, target,
+            IDENTITIES });
+
+        for (final JsonNode node: testData)
+            list.add(new Object[] { "diff.json: " + node.get("message"),
+                node.get("first"), node.get("second"), NO_IDENTITIES });
+
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getChanges")
+    public void diffOfHashedTreesIsTheSameAsDiff(final String message,
+        final JsonNode source, final JsonNode target,
+        final Map<JsonPointer, Set<String>> map)
+        throws IOException
+    {
+        final JsonNode expected = MAPPER.valueToTree(
+            JsonDiff.asJsonPatch(source, target, map));
+        final JsonNode actual = MAPPER.valueToTree(JsonDiff.asJsonPatch(
+            HashedJsonTree.of(source), HashedJsonTree.of(target), map));
+
+        assertEquals(actual, expected, "scenario: " + message);
+    }
+
+    @Test
+    public void treeOfASnapshotCanBeReusedForTheNextDiff()
+        throws IOException
+    {
+        final ObjectNode second = role.deepCopy();
+        entitlements(second).remove(0);
+
+        final ObjectNode third = second.deepCopy();
+        entitlement(third, 0).put("Additional Info", "updated");
+        entitlements(third).add(entitlement(role, 0).deepCopy());
+
+        final HashedJsonTree secondTree = HashedJsonTree.of(second);
+
+        assertEquals(MAPPER.valueToTree(JsonDiff.asJsonPatch(
+            HashedJsonTree.of(role), secondTree, IDENTITIES)),
+            MAPPER.valueToTree(JsonDiff.asJsonPatch(role, second,
+                IDENTITIES)));
+        assertEquals(MAPPER.valueToTree(JsonDiff.asJsonPatch(secondTree,
+            HashedJsonTree.of(third), IDENTITIES)),
+            MAPPER.valueToTree(JsonDiff.asJsonPatch(second, third,
+                IDENTITIES)));
+    }
+
+    private static ArrayNode entitlements(final JsonNode node)
+    {
+        return (ArrayNode) node.get("Entitlements");
+    }
+
+    private static ObjectNode entitlement(final JsonNode node,
+        final int index)
+    {
+        return (ObjectNode) entitlements(node).get(index);
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.JsonPatchMessages;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+public final class JsonDiffEngineTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+
+    private static final Map<JsonPointer, Set<String>> IDENTITIES
+        = ImmutableMap.<JsonPointer, Set<String>>of(
+            JsonPointer.of("Entitlements"), ImmutableSet.of("Application Key",
+                "Entitlement Type", "Entitlement Name"));
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+    private final List<JsonDiffEngine.Pair<Integer>> pairs
+        = new ArrayList<JsonDiffEngine.Pair<Integer>>();
+
+    public JsonDiffEngineTest()
+        throws IOException
+    {
+        final JsonNode role
+            = JsonLoader.fromResource("/jsonpatch/diff/confluxsys.json");
+
+        ObjectNode target;
+
+        for (int index = 0; index < 50; index++) {
+            target = role.deepCopy();
+            target.put("Role Owner Login", "owner" + index);
+            ((ObjectNode) target.get("Entitlements").get(index % 3))
+                .put("Additional Info", "updated" + index);
+            if (index % 5 == 0)
+                ((ArrayNode) target.get("Entitlements")).remove(1);
+            pairs.add(new JsonDiffEngine.Pair<Integer>(index, role, target));
+        }
+    }
+
+    @AfterClass
+    public void shutdown()
+    {
+        executor.shutdown();
+    }
+
+    @Test
+    public void patchesAreTheSameAsSingleDiffs()
+        throws IOException, InterruptedException
+    {
+        final Map<Integer, JsonPatch> patches
+            = new ConcurrentHashMap<Integer, JsonPatch>();
+        final Map<Integer, Exception> failures
+            = new ConcurrentHashMap<Integer, Exception>();
+        final JsonDiffEngine engine
+            = new JsonDiffEngine(IDENTITIES, executor, 4);
+
+        engine.diff(pairs.iterator(), new JsonDiffEngine.Callback<Integer>()
+        {
+            @Override
+            public void onPatch(final Integer key, final JsonPatch patch)
+            {
+                patches.put(key, patch);
+            }
+
+            @Override
+            public void onFailure(final Integer key, final Exception e)
+            {
+                failures.put(key, e);
+            }
+        });
+
+        assertTrue(failures.isEmpty(), "diff failed: " + failures);
+        assertEquals(patches.size(), pairs.size());
+        for (final JsonDiffEngine.Pair<Integer> pair: pairs)
+            assertEquals(MAPPER.valueToTree(patches.get(pair.getKey())),
+                MAPPER.valueToTree(JsonDiff.asJsonPatch(pair.getSource(),
+                    pair.getTarget(), IDENTITIES)));
+    }
+
+    @Test
+    public void pairsAreNotReadFasterThanCallbacksReturn()
+        throws InterruptedException
+    {
+        final int maxPending = 2;
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicInteger maxSeen = new AtomicInteger();
+        final Iterator<JsonDiffEngine.Pair<Integer>> iterator
+            = pairs.iterator();
+        final JsonDiffEngine engine
+            = new JsonDiffEngine(IDENTITIES, executor, maxPending);
+
+        engine.diff(new Iterator<JsonDiffEngine.Pair<Integer>>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return iterator.hasNext();
+            }
+
+            @Override
+            public JsonDiffEngine.Pair<Integer> next()
+            {
+                final int current = pending.incrementAndGet();
+                if (current > maxSeen.get())
+                    maxSeen.set(current);
+                return iterator.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException();
+            }
+        }, new JsonDiffEngine.Callback<Integer>()
+        {
+            @Override
+            public void onPatch(final Integer key, final JsonPatch patch)
+            {
+                try {
+                    Thread.sleep(2L);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                pending.decrementAndGet();
+            }
+
+            @Override
+            public void onFailure(final Integer key, final Exception e)
+            {
+                pending.decrementAndGet();
+            }
+        });
+
+        assertEquals(pending.get(), 0);
+        assertTrue(maxSeen.get() <= maxPending,
+            "too many pending pairs: " + maxSeen.get());
+    }
+
+    @Test(timeOut = 10000L)
+    public void iteratorFailureIsThrownOnceSubmittedPairsAreDiffed()
+        throws InterruptedException
+    {
+        final IllegalStateException failure
+            = new IllegalStateException("read failed");
+        final Iterator<JsonDiffEngine.Pair<Integer>> iterator
+            = pairs.iterator();
+        final AtomicInteger done = new AtomicInteger();
+        final JsonDiffEngine engine
+            = new JsonDiffEngine(IDENTITIES, executor, 2);
+
+        try {
+            engine.diff(new Iterator<JsonDiffEngine.Pair<Integer>>()
+            {
+                private int read = 0;
+
+                @Override
+                public boolean hasNext()
+                {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public JsonDiffEngine.Pair<Integer> next()
+                {
+                    if (++read == 3)
+                        throw failure;
+                    return iterator.next();
+                }
+
+                @Override
+                public void remove()
+                {
+                    throw new UnsupportedOperationException();
+                }
+            }, new JsonDiffEngine.Callback<Integer>()
+            {
+                @Override
+                public void onPatch(final Integer key, final JsonPatch patch)
+                {
+                    done.incrementAndGet();
+                }
+
+                @Override
+                public void onFailure(final Integer key, final Exception e)
+                {
+                    done.incrementAndGet();
+                }
+            });
+            fail("No exception thrown!!");
+        } catch (IllegalStateException e) {
+            assertSame(e, failure);
+        }
+        assertEquals(done.get(), 2);
+    }
+
+    @Test
+    public void pendingLimitMustBePositive()
+    {
+        try {
+            new JsonDiffEngine(IDENTITIES, executor, 0);
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(), BUNDLE.getMessage(
+                "jsonDiff.invalidPendingLimit"));
+        }
+    }
+}
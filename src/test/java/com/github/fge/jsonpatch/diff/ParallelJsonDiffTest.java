@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.github.fge.msgsimple.bundle.MessageBundle;
+import com.github.fge.msgsimple.load.MessageBundles;
+import com.github.fge.jsonpatch.JsonPatchMessages;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.testng.Assert.*;
+
+public final class ParallelJsonDiffTest
+{
+    private static final MessageBundle BUNDLE
+        = MessageBundles.getBundle(JsonPatchMessages.class);
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+
+    private static final Map<JsonPointer, Set<String>> IDENTITIES
+        = ImmutableMap.<JsonPointer, Set<String>>of(
+            JsonPointer.of("Entitlements"), ImmutableSet.of("Application Key",
+                "Entitlement Type", "Entitlement Name"));
+
+    private final ForkJoinPool pool = new ForkJoinPool(4);
+    private final JsonNode role;
+
+    public ParallelJsonDiffTest()
+        throws IOException
+    {
+        final JsonNode entitlement = JsonLoader.fromResource(
+            "/jsonpatch/diff/confluxsys.json").get("Entitlements").get(0);
+        final ObjectNode node = JsonLoader.fromResource(
+            "/jsonpatch/diff/confluxsys.json").deepCopy();
+        final ArrayNode entitlements = node.putArray("Entitlements");
+
+        for (int index = 0; index < 100; index++)
+            entitlements.add(((ObjectNode) entitlement.deepCopy())
+                .put("Application Key", Integer.toString(index)));
+        role = node;
+    }
+
+    @AfterClass
+    public void shutdown()
+    {
+        pool.shutdown();
+    }
+
+    @DataProvider
+    public Iterator<Object[]> getChanges()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        ObjectNode target;
+
+        target = role.deepCopy();
+        list.add(new Object[] { "no change", target });
+
+        target = role.deepCopy();
+        for (int index = 90; index > 0; index -= 10)
+            entitlements(target).remove(index);
+        list.add(new Object[] { "removed entitlements", target });
+
+        target = role.deepCopy();
+        for (int index = 5; index < 100; index += 7)
+            entitlement(target, index).put("Additional Info", "updated");
+        list.add(new Object[] { "modified entitlements", target });
+
+        target = role.deepCopy();
+        entitlements(target).remove(3);
+        entitlements(target).add(entitlement(role, 3).deepCopy());
+        entitlement(target, 50).remove("Entitlement Key");
+        entitlements(target).insert(20, entitlement(role, 0).deepCopy()
+            .put("Application Key", "new"));
+        target.put("Role Owner Login", "JDOE");
+        list.add(new Object[] { "several changes", target });
+
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getChanges")
+    public void parallelDiffIsTheSameAsSequentialDiff(final String message,
+        final JsonNode target)
+        throws IOException
+    {
+        final JsonNode expected = MAPPER.valueToTree(
+            JsonDiff.asJsonPatch(role, target, IDENTITIES));
+
+        for (final int threshold: new int[] { 1, 3, 16, 1000 }) {
+            final JsonNode actual = MAPPER.valueToTree(JsonDiff.asJsonPatch(
+                role, target, IDENTITIES, pool, threshold));
+            assertEquals(actual, expected, "scenario: " + message
+                + ", threshold: " + threshold);
+        }
+    }
+
+    @Test
+    public void thresholdMustBePositive()
+        throws IOException
+    {
+        try {
+            JsonDiff.asJsonPatch(role, role, IDENTITIES, pool, 0);
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertEquals(e.getMessage(), BUNDLE.getMessage(
+                "jsonDiff.invalidThreshold"));
+        }
+    }
+
+    private static ArrayNode entitlements(final JsonNode node)
+    {
+        return (ArrayNode) node.get("Entitlements");
+    }
+
+    private static ObjectNode entitlement(final JsonNode node,
+        final int index)
+    {
+        return (ObjectNode) entitlements(node).get(index);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.JsonNumEquals;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.*;
+
+public final class StreamingJsonDiffTest
+{
+    private static final JsonNumEquals EQUIVALENCE = JsonNumEquals.getInstance();
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    private static final Map<JsonPointer, Set<String>> IDENTITIES
+        = ImmutableMap.<JsonPointer, Set<String>>of(
+            JsonPointer.of("Entitlements"), ImmutableSet.of("Application Key",
+                "Entitlement Type", "Entitlement Name"));
+
+    private final JsonNode role;
+
+    public StreamingJsonDiffTest()
+        throws IOException
+    {
+        role = JsonLoader.fromResource("/jsonpatch/diff/confluxsys.json");
+    }
+
+    @DataProvider
+    public Iterator<Object[]> getEntitlementChanges()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        ObjectNode target;
+
+        target = role.deepCopy();
+        list.add(new Object[] { "no change", target });
+
+        target = role.deepCopy();
+        entitlements(target).remove(1);
+        list.add(new Object[] { "removed entitlement", target });
+
+        target = role.deepCopy();
+        entitlements(target).insert(0, entitlement(target, 0).deepCopy()
+            .put("Application Key", "122"));
+        list.add(new Object[] { "added entitlement", target });
+
+        target = role.deepCopy();
+        entitlement(target, 2).put("Additional Info", "updated");
+        list.add(new Object[] { "modified entitlement", target });
+
+        target = role.deepCopy();
+        entitlements(target).remove(0);
+        entitlement(target, 1).remove("Entitlement Key");
+        entitlements(target).add(entitlement(role, 0).deepCopy()
+            .put("Entitlement Name", "145~Network Security Role"));
+        list.add(new Object[] { "several changes", target });
+
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getEntitlementChanges")
+    public void streamedPatchIsTheSameAsInMemoryPatch(final String message,
+        final JsonNode target)
+        throws IOException
+    {
+        final JsonNode expected = JsonDiff.asJson(role, target, IDENTITIES);
+        final JsonNode actual = streamingDiff(role, target);
+
+        assertThat(EQUIVALENCE.equivalent(expected, actual))
+            .overridingErrorMessage("patch is not what was expected\n"
+                + "scenario: %s\nexpected: %s\nactual: %s\n", message,
+                expected, actual)
+            .isTrue();
+    }
+
+    @Test
+    public void streamedArraysAreNotPartOfOriginalValues()
+        throws IOException
+    {
+        final ObjectNode target = role.deepCopy();
+        target.put("Role Owner Login", "JDOE");
+
+        final JsonNode actual = streamingDiff(role, target);
+
+        assertEquals(actual.size(), 1);
+        assertEquals(actual.get(0).get("path").textValue(),
+            "/?/Role Owner Login");
+        assertFalse(actual.get(0).get("original_value").has("Entitlements"));
+        assertEquals(actual.get(0).get("original_value").get("Role ID"),
+            role.get("Role ID"));
+    }
+
+    @Test
+    public void streamedMembersAreNotPartOfAddedValues()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString(
+            "{ \"id\": { \"a\": { \"a\": \"c\", \"c\": \"a\" } } }");
+        final JsonNode target = JsonLoader.fromString(
+            "{ \"id\": { \"a\": { \"a\": \"c\", \"c\": \"a\" } },"
+            + " \"c\": \"b\" }");
+
+        final JsonNode actual = streamingDiff(source, target);
+
+        assertEquals(actual.size(), 1);
+        assertEquals(actual.get(0).get("op").textValue(), "add");
+        assertEquals(actual.get(0).get("path").textValue(), "/-");
+        assertEquals(actual.get(0).get("value"), MAPPER.createObjectNode());
+        assertEquals(JsonDiff.asJson(source, target, IDENTITIES).get(0)
+            .get("value"), source);
+    }
+
+    @Test
+    public void elementsAreOnlyComparedWithinTheirRegion()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString(
+            "{ \"values\": [ 1, 2, 3, 4, 5, 6 ] }");
+        final JsonNode target = JsonLoader.fromString(
+            "{ \"values\": [ 1, 2, 7, 4, 5, 8 ] }");
+
+        final JsonNode actual = streamingDiff(source, target);
+
+        assertEquals(actual.size(), 2);
+        assertEquals(actual.get(0).get("path").textValue(), "/?/2");
+        assertEquals(actual.get(1).get("path").textValue(), "/?/5");
+        assertEquals(actual.get(1).get("original_value"),
+            JsonLoader.fromString("[ 6 ]"));
+    }
+
+    private static ArrayNode entitlements(final JsonNode node)
+    {
+        return (ArrayNode) node.get("Entitlements");
+    }
+
+    private static ObjectNode entitlement(final JsonNode node,
+        final int index)
+    {
+        return (ObjectNode) entitlements(node).get(index);
+    }
+
+    private static JsonNode streamingDiff(final JsonNode source,
+        final JsonNode target)
+        throws IOException
+    {
+        final StringWriter writer = new StringWriter();
+        final JsonGenerator generator = FACTORY.createGenerator(writer);
+
+        StreamingJsonDiff.diff(FACTORY.createParser(source.toString()),
+            FACTORY.createParser(target.toString()), generator, IDENTITIES);
+        return MAPPER.readTree(writer.toString());
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.JsonNumEquals;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public final class StructuralHashTest
+{
+    private static final JsonNumEquals EQUIVALENCE
+        = JsonNumEquals.getInstance();
+
+    @DataProvider
+    public Iterator<Object[]> getEquivalentValues()
+        throws IOException
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        list.add(pair("1", "1.0"));
+        list.add(pair("-0.0", "0"));
+        list.add(pair("1e3", "1000"));
+        list.add(pair("[ 1, 2.00 ]", "[ 1.0, 2 ]"));
+        list.add(pair("{ \"a\": 1, \"b\": [] }", "{ \"b\": [], \"a\": 1.0 }"));
+        list.add(pair("{ \"x\": { \"y\": null } }", "{ \"x\": { \"y\": null } }"));
+
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getEquivalentValues")
+    public void equivalentValuesHaveTheSameHash(final JsonNode first,
+        final JsonNode second)
+    {
+        assertTrue(EQUIVALENCE.equivalent(first, second));
+        assertEquals(StructuralHash.hash(first), StructuralHash.hash(second));
+    }
+
+    @Test
+    public void arrayOrderIsAccountedFor()
+        throws IOException
+    {
+        final JsonNode first = JsonLoader.fromString("[ 1, 2 ]");
+        final JsonNode second = JsonLoader.fromString("[ 2, 1 ]");
+
+        assertNotEquals(StructuralHash.hash(first),
+            StructuralHash.hash(second));
+    }
+
+    private static Object[] pair(final String first, final String second)
+        throws IOException
+    {
+        return new Object[] {
+            JsonLoader.fromString(first), JsonLoader.fromString(second)
+        };
+    }
+}
@@ -214,6 +214,32 @@ public final class UnchangedTest {
         Assert.assertNotNull(jsonNode);
         System.out.println("" + jsonNode.toPrettyString());
     }
-}
-
 
+    /*
+     * Removing an element from an array aligned by identity leaves the other
+     * elements in place, but the array is still modified: values below it
+     * remain unchanged values, which added values are copied from.
+     */
+    @Test
+    public void arrayWithRemovedElementIsModified()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString(
+            "{ \"b\": { \"id\": \"Y\" },"
+            + " \"Entitlements\": [ { \"id\": \"A\" }, { \"id\": \"X\" } ] }");
+        final JsonNode target = JsonLoader.fromString(
+            "{ \"b\": { \"id\": \"Y\" },"
+            + " \"Entitlements\": [ { \"id\": \"A\" }, { \"id\": \"Y\" } ] }");
+        final Map<JsonPointer, Set<String>> map
+            = Collections.<JsonPointer, Set<String>>singletonMap(
+                JsonPointer.of("Entitlements"), Collections.singleton("id"));
+
+        final JsonNode patch = MAPPER.valueToTree(
+            JsonDiff.asJsonPatch(source, target, map));
+
+        assertEquals(patch.size(), 2, "patch: " + patch);
+        assertEquals(patch.get(0).get("op").textValue(), "remove");
+        assertEquals(patch.get(1).get("op").textValue(), "copy");
+        assertEquals(patch.get(1).get("from").textValue(), "/b");
+    }
+}
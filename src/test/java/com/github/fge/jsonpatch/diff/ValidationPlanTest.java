@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.diff;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jackson.jsonpointer.JsonPointer;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+
+import static org.testng.Assert.*;
+
+public final class ValidationPlanTest
+{
+    private static final JsonPointer ROLES = JsonPointer.of("roles");
+    private static final JsonPointer GROUPS = JsonPointer.of("groups");
+    private static final JsonPointer USERS = JsonPointer.of("org", "users");
+    private static final JsonPointer ADMINS = JsonPointer.of("org", "admins");
+
+    private static final ValidationPlan PLAN = ValidationPlan.compile(
+        ImmutableMap.<JsonPointer, Set<String>>of(
+            ROLES, ImmutableSet.of("id", "name"),
+            GROUPS, ImmutableSet.of("id", "name"),
+            USERS, ImmutableSet.of("id"),
+            ADMINS, ImmutableSet.of("id", "level")));
+
+    @Test
+    public void arraysAreValidIfAllElementsHaveAllAttributes()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString("{"
+            + "\"roles\": [ { \"id\": 1, \"name\": \"a\" }, "
+            + "{ \"id\": 2, \"name\": null, \"x\": 3 } ],"
+            + "\"org\": { \"users\": [ { \"id\": 1 } ], \"admins\": [] }"
+            + "}");
+
+        final ValidationResult result = PLAN.validate(source);
+
+        assertTrue(result.isValid());
+        assertTrue(result.getViolations().isEmpty());
+    }
+
+    @Test
+    public void violationsAreReportedForEachElementOfEachArray()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString("{"
+            + "\"groups\": [ { \"id\": 1, \"name\": \"a\" }, { \"id\": 2 } ],"
+            + "\"org\": { \"users\": [ { \"id\": 1 }, 2 ],"
+            + "\"admins\": [ { \"name\": \"b\" } ] }"
+            + "}");
+
+        final ValidationResult result = PLAN.validate(source);
+        final Map<JsonPointer, Set<String>> expected
+            = ImmutableMap.<JsonPointer, Set<String>>of(
+                GROUPS.append(1), ImmutableSet.of("name"),
+                USERS.append(1), ImmutableSet.of("id"),
+                ADMINS.append(0), ImmutableSet.of("id", "level"));
+
+        assertFalse(result.isValid());
+        assertEquals(result.getViolations().size(), expected.size());
+        for (final ValidationResult.Violation violation:
+            result.getViolations())
+            assertEquals(violation.getMissing(),
+                expected.get(violation.getPointer()));
+    }
+
+    @Test
+    public void missingArraysAndNonArraysAreValid()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString(
+            "{ \"roles\": { \"foo\": \"bar\" }, \"org\": 3 }");
+
+        assertTrue(PLAN.validate(source).isValid());
+    }
+
+    @Test
+    public void diffFailsIfSourceElementsLackAttributes()
+        throws IOException
+    {
+        final JsonNode source = JsonLoader.fromString(
+            "{ \"roles\": [ { \"id\": 1 } ] }");
+
+        try {
+            JsonDiff.asJsonPatch(source, source,
+                ImmutableMap.<JsonPointer, Set<String>>of(ROLES,
+                    ImmutableSet.of("id", "name")));
+            fail("No exception thrown!!");
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("/roles/0"));
+        }
+    }
+}
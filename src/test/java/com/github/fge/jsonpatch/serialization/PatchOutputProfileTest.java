@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2014, Francis Galiegue (fgaliegue@gmail.com)
+ *
+ * This software is dual-licensed under:
+ *
+ * - the Lesser General Public License (LGPL) version 3.0 or, at your option, any
+ *   later version;
+ * - the Apache Software License (ASL) version 2.0.
+ *
+ * The text of this file and of both licenses is available at the root of this
+ * project or, if you have the jar distribution, in directory META-INF/, under
+ * the names LGPL-3.0.txt and ASL-2.0.txt respectively.
+ *
+ * Direct link to the sources:
+ *
+ * - LGPL 3.0: https://www.gnu.org/licenses/lgpl-3.0.txt
+ * - ASL 2.0: http://www.apache.org/licenses/LICENSE-2.0.txt
+ */
+
+package com.github.fge.jsonpatch.serialization;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fge.jackson.JacksonUtils;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jsonpatch.JsonPatch;
+import com.github.fge.jsonpatch.PatchOutputProfile;
+import com.google.common.collect.Lists;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.testng.Assert.*;
+
+public final class PatchOutputProfileTest
+{
+    private static final ObjectMapper MAPPER = JacksonUtils.newMapper();
+
+    private final JsonNode node;
+    private final JsonPatch patch;
+
+    public PatchOutputProfileTest()
+        throws IOException
+    {
+        node = JsonLoader.fromResource("/jsonpatch/profiles.json");
+        patch = JsonPatch.fromJson(node.get("patch"));
+    }
+
+    @DataProvider
+    public Iterator<Object[]> getProfiles()
+    {
+        final List<Object[]> list = Lists.newArrayList();
+
+        for (final PatchOutputProfile profile: PatchOutputProfile.values())
+            list.add(new Object[] { profile, node.get(profile.name()) });
+
+        return list.iterator();
+    }
+
+    @Test(dataProvider = "getProfiles")
+    public void patchIsWrittenAsDefinedByProfile(
+        final PatchOutputProfile profile, final JsonNode expected)
+        throws IOException
+    {
+        assertEquals(MAPPER.readTree(write(profile)), expected);
+    }
+
+    @Test
+    public void patchIsWrittenIdenticallyEachTime()
+        throws IOException
+    {
+        final String first = write(PatchOutputProfile.STRICT);
+
+        assertEquals(write(PatchOutputProfile.STRICT), first);
+        assertEquals(MAPPER.readTree(first), node.get("STRICT"));
+    }
+
+    @Test
+    public void serializationUsesAuditProfile()
+    {
+        assertEquals(MAPPER.valueToTree(patch), node.get("AUDIT"));
+    }
+
+    private String write(final PatchOutputProfile profile)
+        throws IOException
+    {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final JsonGenerator jgen = MAPPER.getFactory().createGenerator(out);
+
+        patch.writeTo(jgen, profile);
+        jgen.close();
+        return new String(out.toByteArray(), "UTF-8");
+    }
+}